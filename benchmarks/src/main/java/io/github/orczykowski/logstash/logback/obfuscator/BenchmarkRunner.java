@@ -0,0 +1,29 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the regular JMH command line options and always attaches the GC
+ * profiler, so every result comes with the allocation rate per operation ({@code gc.alloc.rate.norm}).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final var commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        final var options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
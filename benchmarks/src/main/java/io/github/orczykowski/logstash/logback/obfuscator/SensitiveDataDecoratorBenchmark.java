@@ -0,0 +1,133 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput of both decorators depending on the configuration size and the kind of logged messages.
+ * Run through {@link BenchmarkRunner} to get the allocation rate per operation next to the throughput.
+ * <p>
+ * The default matrix varies the field names, patterns, message length and share of matching messages, 24 combinations
+ * for each decorator, which takes about 6 minutes. Regex timeout, compile mode and matching engine are fixed to the
+ * defaults of the library; compare them by narrowing the matrix, e.g.
+ * {@code -p fieldNames=60 -p patterns=4 -p matchingEngine=LINEAR,TOKENIZER,REGEX}. The regex timeout only costs
+ * where a regex runs, which the default engine avoids for built-in patterns, so measure it with the regex engine:
+ * {@code -p matchingEngine=REGEX -p regexTimeoutMillis=500,-1}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SensitiveDataDecoratorBenchmark {
+    private static final int MESSAGES = 1024;
+    private static final long SEED = 20240601L;
+    private static final List<SensitiveDataPatternFactory.SensitiveValuePatterns> PATTERNS =
+            List.of(SensitiveDataPatternFactory.SensitiveValuePatterns.values());
+    private static final String[] WORDS = {
+            "request", "processed", "in", "ms", "user", "session", "order", "status", "payment", "accepted",
+            "retry", "queue", "latency", "upstream", "cache", "miss", "hit", "for", "with", "and"};
+
+    @Param({"4", "60"})
+    int fieldNames;
+
+    @Param({"1", "4"})
+    int patterns;
+
+    @Param({"256", "8192"})
+    int messageLength;
+
+    @Param({"0", "10", "100"})
+    int matchingPercent;
+
+    @Param({"500"})
+    int regexTimeoutMillis;
+
+    @Param({"PER_FIELD_NAME"})
+    String compileMode;
+
+    @Param({"LINEAR"})
+    String matchingEngine;
+
+    private SensitiveDataAsMaskDecorator maskDecorator;
+    private SensitiveDataAsShortcutDecorator shortcutDecorator;
+    private String[] messages;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final var names = IntStream.range(0, fieldNames).mapToObj(i -> "sensitiveField" + i).toList();
+        maskDecorator = configure(new SensitiveDataAsMaskDecorator(), names);
+        shortcutDecorator = configure(new SensitiveDataAsShortcutDecorator(), names);
+        final var random = new Random(SEED);
+        messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            final var matching = random.nextInt(100) < matchingPercent;
+            messages[i] = createMessage(random, matching ? names.get(random.nextInt(names.size())) : null);
+        }
+    }
+
+    @Benchmark
+    public Object mask() {
+        return maskDecorator.mask(null, nextMessage());
+    }
+
+    @Benchmark
+    public Object shortcut() {
+        return shortcutDecorator.mask(null, nextMessage());
+    }
+
+    private String nextMessage() {
+        next = (next + 1) & (MESSAGES - 1);
+        return messages[next];
+    }
+
+    private <T extends AbstractSensitiveDataDecorator> T configure(final T decorator, final List<String> names) {
+        decorator.addRegexTimeoutMillis(regexTimeoutMillis);
+        decorator.addPatternCompileMode(compileMode);
+        decorator.addMatchingEngine(matchingEngine);
+        PATTERNS.subList(0, patterns).forEach(pattern -> decorator.addPatternName(pattern.name()));
+        names.forEach(decorator::addFieldName);
+        return decorator;
+    }
+
+    private String createMessage(final Random random, final String sensitiveFieldName) {
+        final var message = new StringBuilder(messageLength + 64);
+        appendWords(random, message, sensitiveFieldName == null ? messageLength : messageLength / 2);
+        if (sensitiveFieldName != null) {
+            message.append(sensitiveEntry(PATTERNS.get(random.nextInt(patterns)), sensitiveFieldName)).append(' ');
+            appendWords(random, message, messageLength);
+        }
+        return message.toString();
+    }
+
+    private static void appendWords(final Random random, final StringBuilder message, final int length) {
+        while (message.length() < length) {
+            message.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+    }
+
+    private static String sensitiveEntry(final SensitiveDataPatternFactory.SensitiveValuePatterns pattern, final String fieldName) {
+        return switch (pattern) {
+            case JSON -> "{\"%s\":\"john.doe@example.com\"}".formatted(fieldName);
+            case EQUAL_AND_SQUARE_BRACKETS -> "%s=[john.doe@example.com]".formatted(fieldName);
+            case EQUAL_AND_BRACKETS -> "%s=(john.doe@example.com)".formatted(fieldName);
+            case EQUAL_AND_DOUBLE_QUOTES -> "%s=\"john.doe@example.com\"".formatted(fieldName);
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the cost of the regex timeout guard: no guard at all, the clock read on every
+ * {@code charAt} (the guard used up to 3.0.0) and the guard reading the clock once per
+ * {@link TimeoutRegexCharSequence#CLOCK_CHECK_INTERVAL} calls.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeoutRegexCharSequenceBenchmark {
+    private static final Pattern PATTERN = new SensitiveDataPatternFactory()
+            .create("email", SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.getPatternTemplate());
+
+    @Param({"100", "10000"})
+    int messageLength;
+
+    String message;
+
+    @Setup
+    public void setUp() {
+        final var value = "{\"email\":\"john.doe@example.com\"}";
+        message = "x".repeat(Math.max(0, messageLength - value.length())) + value;
+    }
+
+    @Benchmark
+    public boolean withoutTimeout() {
+        return PATTERN.matcher(message).find();
+    }
+
+    @Benchmark
+    public boolean clockReadOnEveryCharAt() {
+        return new ClockReadOnEveryCharAt(message, 500, PATTERN).matcher().find();
+    }
+
+    @Benchmark
+    public boolean clockReadPerInterval() {
+        return new TimeoutRegexCharSequence(message, 500, PATTERN).matcher().find();
+    }
+
+    /**
+     * Timeout guard as implemented up to 3.0.0, kept as the baseline of this benchmark.
+     */
+    static final class ClockReadOnEveryCharAt implements CharSequence {
+        private final CharSequence inner;
+        private final int timeoutMillis;
+        private final long timeoutTime;
+        private final Pattern pattern;
+
+        ClockReadOnEveryCharAt(final CharSequence inner, final int timeoutMillis, final Pattern pattern) {
+            this(inner, timeoutMillis, pattern, System.currentTimeMillis() + timeoutMillis);
+        }
+
+        private ClockReadOnEveryCharAt(final CharSequence inner, final int timeoutMillis, final Pattern pattern, final long timeoutTime) {
+            this.inner = inner;
+            this.timeoutMillis = timeoutMillis;
+            this.pattern = pattern;
+            this.timeoutTime = timeoutTime;
+        }
+
+        Matcher matcher() {
+            return pattern.matcher(this);
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (System.currentTimeMillis() > timeoutTime) {
+                throw new RegexProcessingTimeoutException(timeoutMillis, pattern.pattern());
+            }
+            return inner.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return inner.length();
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new ClockReadOnEveryCharAt(inner.subSequence(start, end), timeoutMillis, pattern, timeoutTime);
+        }
+
+        @Override
+        public String toString() {
+            return inner.toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds metrics of a decorator to a Micrometer registry. Counters read the decorator metrics on each publication,
+ * so binding adds nothing to the masking path. Per-pattern counters are registered for the patterns compiled
+ * when binding, i.e. after the decorator masked its first value.
+ */
+public class SensitiveDataMetricsBinder implements MeterBinder {
+    static final String METRICS_DISABLED_MSG = "Metrics of the decorator are disabled, enable them with <metricsEnabled>true</metricsEnabled>";
+
+    private final SensitiveDataMetrics metrics;
+    private final Tags tags;
+
+    public SensitiveDataMetricsBinder(final AbstractSensitiveDataDecorator decorator, final Iterable<Tag> tags) {
+        this.metrics = decorator.getMetrics().orElseThrow(() -> new IllegalArgumentException(METRICS_DISABLED_MSG));
+        this.tags = Tags.of(tags);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("logback.obfuscator.messages.scanned", metrics, SensitiveDataMetrics::getScannedMessages)
+                .description("Messages searched for sensitive data")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("logback.obfuscator.messages.masked", metrics, SensitiveDataMetrics::getMaskedMessages)
+                .description("Messages with at least one masked value")
+                .tags(tags)
+                .register(registry);
+        FunctionTimer.builder("logback.obfuscator.scan", metrics, SensitiveDataMetrics::getScannedMessages,
+                        SensitiveDataMetrics::getScanTimeNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent searching messages for sensitive data")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("logback.obfuscator.timeouts", metrics, SensitiveDataMetrics::getTimeouts)
+                .description("Regex evaluations stopped by the regex timeout")
+                .tags(tags)
+                .register(registry);
+        for (final String pattern : metrics.getPatternHits().keySet()) {
+            FunctionCounter.builder("logback.obfuscator.pattern.hits", metrics, m -> m.getHitsOfPattern(pattern))
+                    .description("Sensitive values found by the pattern")
+                    .tags(tags.and("pattern", pattern))
+                    .register(registry);
+        }
+        for (final String pattern : metrics.getPatternTimeouts().keySet()) {
+            FunctionCounter.builder("logback.obfuscator.pattern.timeouts", metrics, m -> m.getTimeoutsOfPattern(pattern))
+                    .description("Regex evaluations of the pattern stopped by the regex timeout")
+                    .tags(tags.and("pattern", pattern))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SensitiveDataMetricsBinderTest {
+
+    @Test
+    void shouldPublishMetricsOfDecorator() {
+        //given:
+        var decorator = new SensitiveDataAsMaskDecorator();
+        decorator.addFieldName("email");
+        decorator.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        decorator.addMetricsEnabled("true");
+        decorator.mask(null, "{\"email\":\"jan@github.io\"}");
+        decorator.mask(null, "{\"email\":\"ola@github.io\"} and {\"login\":\"jan\"}");
+        decorator.mask(null, "{\"login\":\"jan\"} email");
+        var registry = new SimpleMeterRegistry();
+
+        //when:
+        new SensitiveDataMetricsBinder(decorator, Tags.of("appender", "json")).bindTo(registry);
+
+        //then:
+        assertEquals(3, registry.get("logback.obfuscator.messages.scanned").tag("appender", "json").functionCounter().count());
+        assertEquals(2, registry.get("logback.obfuscator.messages.masked").functionCounter().count());
+        assertEquals(3, registry.get("logback.obfuscator.scan").functionTimer().count());
+        assertEquals(0, registry.get("logback.obfuscator.timeouts").functionCounter().count());
+        assertEquals(2, registry.get("logback.obfuscator.pattern.hits").tag("pattern", "JSON").functionCounter().count());
+    }
+
+    @Test
+    void shouldRejectDecoratorWithoutMetrics() {
+        //given:
+        var decorator = new SensitiveDataAsMaskDecorator();
+
+        //expect:
+        var ex = assertThrows(IllegalArgumentException.class, () -> new SensitiveDataMetricsBinder(decorator, Tags.empty()));
+        assertEquals(SensitiveDataMetricsBinder.METRICS_DISABLED_MSG, ex.getMessage());
+    }
+}
@@ -1,39 +1,114 @@
 package io.github.orczykowski.logstash.logback.obfuscator;
 
+import ch.qos.logback.core.spi.ContextAwareBase;
+import ch.qos.logback.core.spi.LifeCycle;
 import net.logstash.logback.mask.ValueMasker;
 import tools.jackson.core.TokenStreamContext;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static java.util.Objects.isNull;
 
-public abstract class AbstractSensitiveDataDecorator implements ValueMasker {
+public abstract class AbstractSensitiveDataDecorator extends ContextAwareBase implements ValueMasker, LifeCycle {
     static final int DEFAULT_REGEX_TIMEOUT_MILLIS = 500;
     static final String INVALID_REGEX_TIMEOUT_FMT = "Regex timeout must be a positive value or -1 (no timeout), got: %d";
     static final String UNKNOWN_PATTERN_NAME_FMT  = "Unknown pattern name. You can use the following predefined pattern names %s";
+    static final String UNKNOWN_COMPILE_MODE_FMT = "Unknown pattern compile mode. You can use the following compile modes %s";
+    static final String UNKNOWN_MATCHING_ENGINE_FMT = "Unknown matching engine. You can use the following matching engines %s";
+    static final String INVALID_FIELD_NAME_MASKING_FMT = "Field name masking must be set to true or false, got: %s";
+    static final long DEFAULT_RESULT_CACHE_MAX_BYTES = 16L * 1024 * 1024;
+    static final String INVALID_RESULT_CACHE_SIZE_FMT = "Result cache size must be zero (no cache) or a positive value, got: %s";
+    static final String INVALID_RESULT_CACHE_MAX_BYTES_FMT = "Result cache byte limit must be a positive value, got: %s";
+    static final String INVALID_CLEAN_VALUE_CACHE_SIZE_FMT = "Clean value cache size must be zero (no cache) or a positive value up to 2^30, got: %s";
+    static final String INVALID_METRICS_ENABLED_FMT = "Metrics enabled must be set to true or false, got: %s";
+    static final String UNKNOWN_TIMEOUT_POLICY_FMT = "Unknown regex timeout policy. You can use the following policies %s";
+    static final String INVALID_CIRCUIT_BREAKER_THRESHOLD_FMT = "Circuit breaker threshold must be zero (disabled) or a positive value, got: %s";
+    static final String INVALID_CIRCUIT_BREAKER_COOL_DOWN_FMT = "Circuit breaker cool-down must be a positive value, got: %s";
+    static final long DEFAULT_CIRCUIT_BREAKER_COOL_DOWN_MILLIS = 60_000;
+    static final int NO_STREAMING = 0;
+    static final String INVALID_STREAMING_THRESHOLD_FMT = "Streaming threshold must be zero (disabled) or a positive value, got: %s";
+    static final String INVALID_STREAMING_MAX_VALUE_LENGTH_FMT = "Streaming maximum value length must be a positive value, got: %s";
+    static final int NO_PARALLEL_SCAN = 0;
+    static final String INVALID_PARALLEL_SCAN_THRESHOLD_FMT = "Parallel scan threshold must be zero (disabled) or a positive value, got: %s";
+    static final String INVALID_SCAN_BUDGET_FMT = "Regex scan budget must be zero (no budget) or a positive value, got: %s";
+    static final String TRUNCATION_MARKER = "...[TRUNCATED: regex timeout]";
+    static final String INVALID_PATH_RULE_MSG = "Path rule requires at least one path and a value masker";
     static final String INVALID_CUSTOM_PATERN_MSG = """
             Pattern have to be complies with java regexp and have to contains place holder
             %s where in log is sensitive value. The sensitive value must be a group in the sense of regular
             expressions, it has to be surrounded by parentheses.""".formatted(SensitiveDataPatternFactory.PROPERTY_NAME_MARKER);
-    static final String MISSING_PROPERTY_PATERNS_MSG = """
-            There is no pattern to detecting sensitive data added yet.
-            Make sure the list of field names with sensitive fields is added after the patterns.""";
+    static final String INVALID_FIELD_NAME_FMT = "Field name must be a literal or a valid regular expression, got: %s";
+    static final String INCOMPLETE_RULES_MSG = "Rules require at least one field name and one pattern";
+    static final long DEFAULT_RULES_FILE_CHECK_INTERVAL_MILLIS = 10_000;
+    static final String INVALID_RULES_FILE_MSG = "Rules file path must not be blank";
+    static final String INVALID_RULES_FILE_CHECK_INTERVAL_FMT = "Rules file check interval must be a positive value, got: %s";
+    static final String RULES_RELOADED_FMT = "Sensitive data rules reloaded from %s";
+    static final String RULES_RELOAD_FAILED_FMT = "Cannot reload sensitive data rules from %s, the previous rules stay in use";
+    static final String INVALID_RULE_SET_NAME_MSG = "Rule set name must not be blank";
+    static final String UNKNOWN_RULE_SET_FMT = "No started value masker of the context declares the rule set %s, nothing is masked until one does";
+    static final String RULE_SET_REPLACED_FMT = "Rule set %s declared by another started value masker is replaced";
+    static final String INVALID_PRECOMPILED_RULE_SET_MSG = "Precompiled rule set resource must not be blank";
+    static final String PRECOMPILED_RULE_SET_MISSING_FMT = "Precompiled rule set %s not found, the rules are compiled at startup";
+    static final String PRECOMPILED_RULE_SET_OUTDATED_FMT = "Precompiled rule set %s was generated for another configuration, the rules are compiled at startup";
+    static final String PRECOMPILED_RULE_SET_UNREADABLE_FMT = "Cannot read precompiled rule set %s, the rules are compiled at startup";
+    static final String RULE_SET_REF_WITH_RULES_FMT = "Value masker referencing the rule set %s must not declare rules nor a rule set name";
 
-    private static final SensitiveDataPatternFactory patternFactory = new SensitiveDataPatternFactory();
+    private static final ThreadLocal<SensitiveValueSpans> sensitiveValueSpans = ThreadLocal.withInitial(SensitiveValueSpans::new);
 
     protected final Set<String> patterns = new LinkedHashSet<>();
-    protected final Set<Pattern> sensitiveFieldNamePatterns = new LinkedHashSet<>();
+    private final Set<String> fieldNames = new LinkedHashSet<>();
     private int regexTimeoutMillis = DEFAULT_REGEX_TIMEOUT_MILLIS;
+    private SensitiveDataPatternFactory.CompileMode compileMode = SensitiveDataPatternFactory.CompileMode.PER_FIELD_NAME;
+    private SensitiveDataPatternFactory.MatchingEngine matchingEngine = SensitiveDataPatternFactory.MatchingEngine.LINEAR;
+    private SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy = SensitiveDataPatternFactory.TimeoutPolicy.THROW;
+    private int circuitBreakerThreshold = RegexLimits.NO_CIRCUIT_BREAKER;
+    private long circuitBreakerCoolDownMillis = DEFAULT_CIRCUIT_BREAKER_COOL_DOWN_MILLIS;
+    private int scanBudgetMillis = RegexLimits.NO_SCAN_BUDGET;
+    private int parallelScanThreshold = NO_PARALLEL_SCAN;
+    private int streamingThreshold = NO_STREAMING;
+    private int streamingMaxValueLength = StreamingMasker.DEFAULT_MAX_VALUE_LENGTH;
+    private volatile StreamingMasker streamingMasker;
+    private boolean fieldNameMasking;
+    private SensitiveDataMetrics metrics;
+    private String metricsJmxName;
+    private final List<PathRules.Binding> pathBindings = new ArrayList<>();
+    private volatile CompiledRuleSet compiledRuleSet;
+    private volatile boolean started;
+    private RulesFile rulesFile;
+    private long rulesFileCheckIntervalMillis = DEFAULT_RULES_FILE_CHECK_INTERVAL_MILLIS;
+    private ScheduledExecutorService rulesFileWatcher;
+    private String ruleSetName;
+    private String ruleSetRef;
+    private volatile AbstractSensitiveDataDecorator ruleSetOwner;
+    private volatile boolean unknownRuleSetReported;
+    private String precompiledRuleSet;
+    private int resultCacheSize;
+    private long resultCacheMaxBytes = DEFAULT_RESULT_CACHE_MAX_BYTES;
+    private volatile PathRules pathRules;
+    private volatile RuleSetResultCache resultCache;
+    private int cleanValueCacheSize;
+    private volatile CleanValueCache cleanValueCache;
 
     public void addRegexTimeoutMillis(final int timeoutMillis) {
         if (timeoutMillis == 0 || timeoutMillis < TimeoutRegexCharSequence.NO_TIMEOUT) {
             throw new IncorrectConfigurationException(INVALID_REGEX_TIMEOUT_FMT.formatted(timeoutMillis));
         }
         this.regexTimeoutMillis = timeoutMillis;
+        configurationChanged();
     }
 
     /**
@@ -46,60 +121,873 @@ public abstract class AbstractSensitiveDataDecorator implements ValueMasker {
         this.addRegexTimeoutMillis(Integer.parseInt(timeoutMillis));
     }
 
+    /**
+     * Chooses how field names and patterns are compiled into regular expressions:
+     * {@code PER_FIELD_NAME} (default) compiles one regex per field name and pattern,
+     * {@code PER_PATTERN} one regex per pattern with an alternation of all field names and
+     * {@code SINGLE} one regex covering all patterns, so each log message is scanned once.
+     * @param  compileMode   name of the compile mode
+     */
+    public void addPatternCompileMode(final String compileMode) {
+        if (isBlank(compileMode) || SensitiveDataPatternFactory.CompileMode.isValidName(compileMode)) {
+            throw new IncorrectConfigurationException(UNKNOWN_COMPILE_MODE_FMT.formatted(
+                    SensitiveDataPatternFactory.CompileMode.getCompileModesNames()));
+        }
+        this.compileMode = SensitiveDataPatternFactory.CompileMode.valueOf(compileMode);
+        configurationChanged();
+    }
+
+    /**
+     * Chooses the engine matching the predefined patterns: {@code LINEAR} (default) runs them in time linear to the
+     * value length without any regex and without the regex timeout, {@code REGEX} runs them as regular expressions.
+     * Custom patterns and field names given as regular expressions always use the regex engine.
+     * @param  matchingEngine   name of the matching engine
+     */
+    public void addMatchingEngine(final String matchingEngine) {
+        if (isBlank(matchingEngine) || SensitiveDataPatternFactory.MatchingEngine.isValidName(matchingEngine)) {
+            throw new IncorrectConfigurationException(UNKNOWN_MATCHING_ENGINE_FMT.formatted(
+                    SensitiveDataPatternFactory.MatchingEngine.getMatchingEnginesNames()));
+        }
+        this.matchingEngine = SensitiveDataPatternFactory.MatchingEngine.valueOf(matchingEngine);
+        configurationChanged();
+    }
+
+    /**
+     * Chooses what happens when a regular expression exceeds the regex timeout: {@code THROW} (default) throws
+     * {@link RegexProcessingTimeoutException}, {@code MASK_VALUE} masks the whole value, {@code DROP_VALUE} replaces it
+     * with an empty string, {@code TRUNCATE_VALUE} cuts it before the first field name and appends a marker and
+     * {@code SKIP_PATTERN} ignores only the pattern that timed out. {@code TRUNCATE_VALUE} keeps nothing of the value
+     * when field names are regular expressions or a custom pattern captures its value before the field name. Policies other than {@code THROW} handle
+     * the timeout without creating an exception.
+     * @param  timeoutPolicy   name of the timeout policy
+     */
+    public void addRegexTimeoutPolicy(final String timeoutPolicy) {
+        if (isBlank(timeoutPolicy) || SensitiveDataPatternFactory.TimeoutPolicy.isValidName(timeoutPolicy)) {
+            throw new IncorrectConfigurationException(UNKNOWN_TIMEOUT_POLICY_FMT.formatted(
+                    SensitiveDataPatternFactory.TimeoutPolicy.getTimeoutPoliciesNames()));
+        }
+        this.timeoutPolicy = SensitiveDataPatternFactory.TimeoutPolicy.valueOf(timeoutPolicy);
+        configurationChanged();
+    }
+
+    /**
+     * Stops running a regular expression which timed out the given number of times in a row for the cool-down period
+     * set with {@link #addRegexCircuitBreakerCoolDownMillis(String)}. Meanwhile, values are handled as if it timed out.
+     * @param  threshold   number of timeouts in a row, {@code 0} (default) disables circuit breaking
+     */
+    public void addRegexCircuitBreakerThreshold(final String threshold) {
+        final var value = parseLong(threshold, INVALID_CIRCUIT_BREAKER_THRESHOLD_FMT);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IncorrectConfigurationException(INVALID_CIRCUIT_BREAKER_THRESHOLD_FMT.formatted(threshold));
+        }
+        this.circuitBreakerThreshold = (int) value;
+        configurationChanged();
+    }
+
+    /**
+     * @param  coolDownMillis   time in milliseconds a regular expression is not run after tripping the circuit breaker (default: 60000)
+     */
+    public void addRegexCircuitBreakerCoolDownMillis(final String coolDownMillis) {
+        final var value = parseLong(coolDownMillis, INVALID_CIRCUIT_BREAKER_COOL_DOWN_FMT);
+        if (value <= 0) {
+            throw new IncorrectConfigurationException(INVALID_CIRCUIT_BREAKER_COOL_DOWN_FMT.formatted(coolDownMillis));
+        }
+        this.circuitBreakerCoolDownMillis = value;
+        configurationChanged();
+    }
+
+    /**
+     * Limits the time all regular expressions together may spend on a single value, so the latency added to a log
+     * event stays bounded however many patterns are configured. The regex timeout still limits each of them.
+     * A value exceeding the budget is handled by the regex timeout policy.
+     * @param  budgetMillis   time in milliseconds, {@code 0} (default) disables the budget
+     */
+    public void addRegexScanBudgetMillis(final int budgetMillis) {
+        if (budgetMillis < 0) {
+            throw new IncorrectConfigurationException(INVALID_SCAN_BUDGET_FMT.formatted(budgetMillis));
+        }
+        this.scanBudgetMillis = budgetMillis;
+        configurationChanged();
+    }
+
+    /**
+     * Alternate configuration method for {@link #addRegexScanBudgetMillis(int)}, for the same reason as
+     * {@link #addRegexTimeoutSpec(String)}.
+     * @param  budgetMillis   time in milliseconds, {@code 0} (default) disables the budget
+     */
+    public void addRegexScanBudgetSpec(final String budgetMillis) {
+        final var value = parseLong(budgetMillis, INVALID_SCAN_BUDGET_FMT);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IncorrectConfigurationException(INVALID_SCAN_BUDGET_FMT.formatted(budgetMillis));
+        }
+        this.addRegexScanBudgetMillis((int) value);
+    }
+
+    /**
+     * Splits values longer than the threshold into chunks of about the threshold length, which are scanned
+     * in parallel on the common {@link java.util.concurrent.ForkJoinPool}. Shorter values are scanned sequentially.
+     * The regex timeout and the scan budget apply to each chunk separately.
+     * @param  threshold   length in characters, {@code 0} (default) disables parallel scanning
+     */
+    public void addParallelScanThreshold(final String threshold) {
+        final var value = parseLong(threshold, INVALID_PARALLEL_SCAN_THRESHOLD_FMT);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IncorrectConfigurationException(INVALID_PARALLEL_SCAN_THRESHOLD_FMT.formatted(threshold));
+        }
+        this.parallelScanThreshold = (int) value;
+    }
+
+    /**
+     * Masks values longer than the threshold window by window with {@link StreamingMasker}, so no full-length copy
+     * is made besides the result. Such values are neither cached nor scanned in parallel.
+     * @param  threshold   length in characters, {@code 0} (default) disables streaming
+     */
+    public void addStreamingThreshold(final String threshold) {
+        final var value = parseLong(threshold, INVALID_STREAMING_THRESHOLD_FMT);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IncorrectConfigurationException(INVALID_STREAMING_THRESHOLD_FMT.formatted(threshold));
+        }
+        this.streamingThreshold = (int) value;
+    }
+
+    /**
+     * @param  maxValueLength   length of the longest sensitive value found by streaming when it crosses the end of a window (default: 65536)
+     */
+    public void addStreamingMaxValueLength(final String maxValueLength) {
+        final var value = parseLong(maxValueLength, INVALID_STREAMING_MAX_VALUE_LENGTH_FMT);
+        if (value <= 0 || value > Integer.MAX_VALUE) {
+            throw new IncorrectConfigurationException(INVALID_STREAMING_MAX_VALUE_LENGTH_FMT.formatted(maxValueLength));
+        }
+        this.streamingMaxValueLength = (int) value;
+        configurationChanged();
+    }
+
+    /**
+     * When enabled, a value of a structured field (e.g. {@code StructuredArguments.kv} or MDC entry) whose name is
+     * one of the configured field names is masked as a whole, without searching it for patterns.
+     * Values of all other fields are still searched for patterns.
+     * @param  enabled   {@code true} or {@code false} (default)
+     */
+    public void addFieldNameMasking(final String enabled) {
+        this.fieldNameMasking = parseBoolean(enabled, INVALID_FIELD_NAME_MASKING_FMT);
+    }
+
+    /**
+     * Enables counting scanned and masked messages, time spent on scanning, values found per pattern
+     * and regex timeouts per pattern. Disabled metrics cost nothing on the hot path.
+     * @param  enabled   {@code true} or {@code false} (default)
+     */
+    public void addMetricsEnabled(final String enabled) {
+        final var metricsEnabled = parseBoolean(enabled, INVALID_METRICS_ENABLED_FMT);
+        if (metricsEnabled == isNull(metrics)) {
+            this.metrics = metricsEnabled ? new SensitiveDataMetrics() : null;
+            configurationChanged();
+        }
+    }
+
+    /**
+     * Enables metrics and exposes them in the platform MBean server as
+     * {@code io.github.orczykowski.logstash.logback.obfuscator:type=SensitiveDataMetrics,name=<name>}
+     * from {@link #start()} until {@link #stop()}.
+     * @param  name   name distinguishing metrics of this decorator
+     */
+    public void addMetricsJmxName(final String name) {
+        if (isBlank(name)) {
+            throw new IncorrectConfigurationException(SensitiveDataMetrics.INVALID_JMX_NAME_FMT.formatted(name, "blank name"));
+        }
+        addMetricsEnabled("true");
+        this.metricsJmxName = name;
+    }
+
+    /**
+     * @return metrics of this decorator, empty unless enabled with {@link #addMetricsEnabled(String)}
+     */
+    public Optional<SensitiveDataMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    /**
+     * Values on the given JSON path are searched for sensitive data. Once any path is added this way, values on paths
+     * not bound by {@link #addScanPath(String)}, {@link #addSkipPath(String)} or {@link #addPathRule(PathRule)} are
+     * no longer searched. Paths are dot separated field names, where {@code *} stands for any single field name and
+     * {@code **} for any number of them, e.g. {@code message} or {@code mdc.*}. The first added matching path wins.
+     * @param  path   JSON path of values to search
+     */
+    public void addScanPath(final String path) {
+        PathRules.validatePath(path);
+        addPathBinding(new PathRules.Binding(path, PathRules.Action.SCAN, null));
+    }
+
+    /**
+     * Values on the given JSON path, e.g. {@code @timestamp}, are never masked.
+     * @param  path   JSON path of values to skip, see {@link #addScanPath(String)}
+     */
+    public void addSkipPath(final String path) {
+        PathRules.validatePath(path);
+        addPathBinding(new PathRules.Binding(path, PathRules.Action.SKIP, null));
+    }
+
+    /**
+     * Values on the paths of the rule are masked by the value masker of the rule instead of this decorator.
+     * @param  pathRule   paths with their value masker
+     */
+    public void addPathRule(final PathRule pathRule) {
+        if (isNull(pathRule) || pathRule.getPaths().isEmpty() || isNull(pathRule.getValueMasker())) {
+            throw new IncorrectConfigurationException(INVALID_PATH_RULE_MSG);
+        }
+        for (final String path : pathRule.getPaths()) {
+            addPathBinding(new PathRules.Binding(path, PathRules.Action.DELEGATE, pathRule.getValueMasker()));
+        }
+    }
+
+    private void addPathBinding(final PathRules.Binding binding) {
+        pathBindings.add(binding);
+        this.pathRules = null;
+    }
+
+    /**
+     * Enables the cache of masking results, so a log message repeated exactly is masked only once.
+     * Messages not used recently are evicted when the cache exceeds the number of entries
+     * or the byte limit set with {@link #addResultCacheMaxBytes(String)}.
+     * @param  size   maximum number of cached messages, {@code 0} (default) disables the cache
+     */
+    public void addResultCacheSize(final String size) {
+        final var value = parseLong(size, INVALID_RESULT_CACHE_SIZE_FMT);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IncorrectConfigurationException(INVALID_RESULT_CACHE_SIZE_FMT.formatted(size));
+        }
+        this.resultCacheSize = (int) value;
+        configurationChanged();
+    }
+
+    /**
+     * Approximate limit of memory taken by cached messages and their masked versions (default: 16 MiB).
+     * Messages too long to fit their share of the limit are not cached.
+     * @param  maxBytes   maximum size of the cache in bytes
+     */
+    public void addResultCacheMaxBytes(final String maxBytes) {
+        final var value = parseLong(maxBytes, INVALID_RESULT_CACHE_MAX_BYTES_FMT);
+        if (value <= 0) {
+            throw new IncorrectConfigurationException(INVALID_RESULT_CACHE_MAX_BYTES_FMT.formatted(maxBytes));
+        }
+        this.resultCacheMaxBytes = value;
+        configurationChanged();
+    }
+
+    /**
+     * @return number of messages taken from the result cache, {@code 0} when the cache is disabled
+     */
+    public long getResultCacheHits() {
+        final var cache = resultCache;
+        return isNull(cache) ? 0 : cache.cache().hits();
+    }
+
+    /**
+     * @return number of messages masked because they were not in the result cache, {@code 0} when the cache is disabled
+     */
+    public long getResultCacheMisses() {
+        final var cache = resultCache;
+        return isNull(cache) ? 0 : cache.cache().misses();
+    }
+
+    /**
+     * Enables the cache of values found to contain no sensitive data, so e.g. recurring logger names or constant
+     * messages are returned right away. The cache keeps the values themselves (up to 1024 chars each) and confirms
+     * every hit by comparing them, so a value is never taken for clean because of a hash collision.
+     * @param  size   number of slots, rounded up to a power of two, {@code 0} (default) disables the cache
+     */
+    public void addCleanValueCacheSize(final String size) {
+        final var value = parseLong(size, INVALID_CLEAN_VALUE_CACHE_SIZE_FMT);
+        if (value < 0 || value > 1 << 30) {
+            throw new IncorrectConfigurationException(INVALID_CLEAN_VALUE_CACHE_SIZE_FMT.formatted(size));
+        }
+        this.cleanValueCacheSize = (int) value;
+        configurationChanged();
+    }
+
     protected int getRegexTimeoutMillis() {
         return regexTimeoutMillis;
     }
 
     protected Matcher matcherWithTimeout(final Pattern pattern, final CharSequence input) {
-        if (regexTimeoutMillis == TimeoutRegexCharSequence.NO_TIMEOUT) {
-            return pattern.matcher(input);
+        return TimeoutRegexCharSequence.matcher(pattern, input, regexTimeoutMillis);
+    }
+
+    /**
+     * Finds the sensitive values of all patterns in the original message in one go. The returned spans are
+     * sorted, free of overlaps and reused by the calling thread, so they are valid only until the next call.
+     */
+    SensitiveValueSpans findSensitiveValues(final String logMessage) {
+        final var spans = sensitiveValueSpans.get();
+        spans.clear();
+        final var ruleSet = getCompiledRuleSet();
+        if (parallelScanThreshold != NO_PARALLEL_SCAN && logMessage.length() > parallelScanThreshold) {
+            spans.addAll(ChunkedScanTask.scan(ruleSet, logMessage, parallelScanThreshold));
+        } else {
+            ruleSet.findSensitiveValues(logMessage, spans);
+        }
+        spans.resolveOverlaps();
+        if (spans.isTimedOut()) {
+            applyTimeoutPolicy(timeoutPolicy, ruleSet, logMessage, spans);
         }
-        return new TimeoutRegexCharSequence(input, regexTimeoutMillis, pattern).matcher();
+        return spans;
     }
 
-    public void addFieldName(final String fieldName) {
-        if (patterns.isEmpty()) {
-            throw new IncorrectConfigurationException(MISSING_PROPERTY_PATERNS_MSG);
+    /**
+     * Finder working directly on UTF-8 encoded text, available only when the rules in use do not need regular
+     * expressions and the decorator knows how to replace values in UTF-8 encoded text.
+     * @return {@code null} when not available
+     */
+    Utf8SensitiveValueFinder getUtf8SensitiveValueFinder() {
+        return isNull(utf8Replacement()) ? null : getCompiledRuleSet().utf8Finder();
+    }
+
+    /**
+     * Masks UTF-8 encoded text without decoding it.
+     * @return the input itself when there is nothing to mask, a new array otherwise
+     */
+    byte[] maskUtf8(final byte[] logMessage, final Utf8SensitiveValueFinder finder) {
+        final var scanMetrics = metrics;
+        final var scanStart = isNull(scanMetrics) ? 0L : System.nanoTime();
+        final var spans = sensitiveValueSpans.get();
+        spans.clear();
+        finder.find(logMessage, spans);
+        spans.resolveOverlaps();
+        final var masked = spans.applyTo(logMessage, utf8Replacement());
+        if (!isNull(scanMetrics)) {
+            scanMetrics.recordScan(System.nanoTime() - scanStart, masked != logMessage);
         }
-        final var patterns = asPropertyNamePatterns(fieldName);
-        sensitiveFieldNamePatterns.addAll(patterns);
+        return masked;
+    }
+
+    /**
+     * Masks a whole log message, e.g. one formatted by an encoder, counting it in the metrics like values masked by
+     * {@link #mask(TokenStreamContext, Object)}.
+     */
+    String maskRecorded(final String logMessage) {
+        final var scanMetrics = metrics;
+        if (isNull(scanMetrics)) {
+            return maskLogMessage(logMessage);
+        }
+        final var scanStart = System.nanoTime();
+        final var masked = maskLogMessage(logMessage);
+        scanMetrics.recordScan(System.nanoTime() - scanStart, masked != logMessage);
+        return masked;
+    }
+
+    private static boolean isSensitiveField(final CompiledRuleSet ruleSet, final TokenStreamContext context) {
+        if (isNull(context)) {
+            return false;
+        }
+        var fieldName = context.currentName();
+        if (isNull(fieldName) && context.inArray() && !isNull(context.getParent())) {
+            // elements of an array are masked like the field holding the array
+            fieldName = context.getParent().currentName();
+        }
+        return !isNull(fieldName) && ruleSet.isSensitiveFieldName(fieldName);
+    }
+
+    /**
+     * Masks the whole value the same way a sensitive value found by a pattern is masked.
+     * @return {@code null} when the decorator masks only values found by patterns
+     */
+    String maskWholeValue(final String value) {
+        final var replacement = replacement();
+        if (isNull(replacement)) {
+            return null;
+        }
+        final var spans = sensitiveValueSpans.get();
+        spans.clear();
+        spans.add(0, value.length());
+        return spans.applyTo(value, replacement);
+    }
+
+    /**
+     * Replacement of sensitive values in text, {@code null} when the decorator only implements {@link #maskLogMessage(String)}.
+     */
+    SensitiveValueSpans.Replacement replacement() {
+        return null;
+    }
+
+    /**
+     * Replacement of sensitive values in UTF-8 encoded text, {@code null} when the decorator masks decoded text only.
+     */
+    SensitiveValueSpans.Utf8Replacement utf8Replacement() {
+        return null;
+    }
+
+    /**
+     * @return whether the last value masked by the calling thread was scanned by all patterns
+     */
+    private static boolean isLastScanComplete() {
+        return !sensitiveValueSpans.get().isTimedOut();
+    }
+
+    SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy() {
+        return timeoutPolicy;
+    }
+
+    /**
+     * Replaces the spans found in a value whose scan timed out as the policy requires for the whole value.
+     */
+    static void applyTimeoutPolicy(final SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy, final CompiledRuleSet ruleSet,
+                                   final String logMessage, final SensitiveValueSpans spans) {
+        switch (timeoutPolicy) {
+            case MASK_VALUE -> {
+                spans.removeFrom(0);
+                spans.add(0, logMessage.length());
+            }
+            case DROP_VALUE -> spans.truncate(0, "");
+            case TRUNCATE_VALUE -> spans.truncate(ruleSet.firstFieldNameStart(logMessage), TRUNCATION_MARKER);
+            default -> {
+                // THROW and SKIP_PATTERN are handled by the regex engine
+            }
+        }
+    }
+
+    /**
+     * Field names may be declared before or after the patterns, they are combined with the patterns on {@link #start()}.
+     * @param  fieldName   name of a field holding sensitive values, literally or as a regular expression
+     */
+    public void addFieldName(final String fieldName) {
+        fieldNames.add(validFieldName(fieldName));
+        configurationChanged();
     }
 
     @Override
     public Object mask(final TokenStreamContext jsonStreamContext, final Object obj) {
         if (obj instanceof CharSequence seq) {
-            return maskLogMessage((String) seq);
+            if (!isNull(jsonStreamContext) && !pathBindings.isEmpty()) {
+                final var binding = getPathRules().resolve(jsonStreamContext);
+                if (binding.action() == PathRules.Action.SKIP) {
+                    return obj;
+                }
+                if (binding.action() == PathRules.Action.DELEGATE) {
+                    return binding.valueMasker().mask(jsonStreamContext, obj);
+                }
+            }
+            final var ruleSet = getCompiledRuleSet();
+            if (fieldNameMasking && isSensitiveField(ruleSet, jsonStreamContext)) {
+                final var whole = maskWholeValue(seq.toString());
+                if (!isNull(whole)) {
+                    return whole;
+                }
+            }
+            if (!ruleSet.mayContainSensitiveData(seq)) {
+                return obj;
+            }
+            if (streamingThreshold != NO_STREAMING && seq.length() > streamingThreshold) {
+                return maskStreaming(seq);
+            }
+            // any char sequence, e.g. a StringBuilder logged as an argument, is scanned as a string
+            final var logMessage = seq.toString();
+            final var cleanValues = getCleanValueCache();
+            if (!isNull(cleanValues) && cleanValues.contains(logMessage)) {
+                return obj;
+            }
+            final var cache = getResultCache();
+            final var scanMetrics = metrics;
+            final var scanStart = isNull(scanMetrics) ? 0L : System.nanoTime();
+            final var masked = isNull(cache)
+                    ? maskLogMessage(logMessage)
+                    : cache.get(logMessage, this::maskLogMessage, AbstractSensitiveDataDecorator::isLastScanComplete);
+            if (!isNull(scanMetrics)) {
+                scanMetrics.recordScan(System.nanoTime() - scanStart, masked != logMessage);
+            }
+            if (!isNull(cleanValues) && masked == logMessage && isLastScanComplete()) {
+                cleanValues.add(logMessage);
+            }
+            return masked == logMessage ? obj : masked;
         }
         return obj;
     }
 
     public void addPatternName(final String predefinedPatternName) {
+        this.patterns.add(patternTemplateOf(predefinedPatternName));
+        configurationChanged();
+    }
+
+    public void addCustomPattern(final String pattern) {
+        this.patterns.add(validCustomPattern(pattern));
+        configurationChanged();
+    }
+
+    /**
+     * Reads field names and patterns from a file which replace the ones declared in the configuration, see
+     * {@link RulesFile} for the format. The file is read on {@link #start()} and then every check interval, rules
+     * changed in the file are swapped in like with {@link #reloadRules(Collection, Collection, Collection)}.
+     * Rules which cannot be read are reported to the Logback status and the previous rules stay in use.
+     * @param  path   path of the rules file
+     */
+    public void addRulesFile(final String path) {
+        if (isBlank(path)) {
+            throw new IncorrectConfigurationException(INVALID_RULES_FILE_MSG);
+        }
+        this.rulesFile = new RulesFile(Path.of(path.trim()));
+    }
+
+    /**
+     * @param  intervalMillis   time in milliseconds between checks whether the rules file was modified (default: 10000)
+     */
+    public void addRulesFileCheckIntervalMillis(final String intervalMillis) {
+        final var value = parseLong(intervalMillis, INVALID_RULES_FILE_CHECK_INTERVAL_FMT);
+        if (value <= 0) {
+            throw new IncorrectConfigurationException(INVALID_RULES_FILE_CHECK_INTERVAL_FMT.formatted(intervalMillis));
+        }
+        this.rulesFileCheckIntervalMillis = value;
+    }
+
+    /**
+     * Shares the rules of this decorator under the name with decorators referencing it by {@link #addRuleSetRef(String)},
+     * once this decorator is started. They all use the rule set compiled and the clean value cache created by this one.
+     * @param  name   name of the rule set
+     */
+    public void addRuleSetName(final String name) {
+        if (isBlank(name)) {
+            throw new IncorrectConfigurationException(INVALID_RULE_SET_NAME_MSG);
+        }
+        this.ruleSetName = name.trim();
+    }
+
+    /**
+     * Uses the rules shared by a decorator declaring the name by {@link #addRuleSetName(String)} in the same Logback
+     * context, including its matching settings, rule reloads, and clean value cache, instead of declaring rules.
+     * The reference is resolved on first use, so the declaring decorator may be configured later. Until it is resolved,
+     * nothing is masked and an error is reported once. Masking and path rules stay
+     * the ones of this decorator, and so does the result cache, as masked values depend on the masking.
+     * @param  name   name of the rule set
+     */
+    public void addRuleSetRef(final String name) {
+        if (isBlank(name)) {
+            throw new IncorrectConfigurationException(INVALID_RULE_SET_NAME_MSG);
+        }
+        this.ruleSetRef = name.trim();
+        configurationChanged();
+    }
+
+    /**
+     * Loads the regular expressions of the rules from a descriptor generated at build time by
+     * {@link RuleSetDescriptorGenerator}, instead of building them from the field names and patterns at startup.
+     * The descriptor is used only when it was generated for the same field names, patterns, compile mode and matching
+     * engine; when it is missing or outdated, the rules are compiled as usual.
+     * @param  resource   name of the descriptor resource on the classpath
+     */
+    public void addPrecompiledRuleSet(final String resource) {
+        if (isBlank(resource)) {
+            throw new IncorrectConfigurationException(INVALID_PRECOMPILED_RULE_SET_MSG);
+        }
+        this.precompiledRuleSet = resource.trim();
+        configurationChanged();
+    }
+
+    /**
+     * Replaces all field names and patterns while the decorator is in use, e.g. to mask a new field without restarting
+     * Logback. The rules are validated and compiled on the calling thread and then published at once, so values being
+     * masked meanwhile are masked with either the previous or the new rules and never wait for the compilation.
+     * Caches of masked values are dropped. Other settings and the rules of path rules stay unchanged.
+     * A decorator referencing a shared rule set reloads the rules of the declaring decorator.
+     * @param  fieldNames       names of fields holding sensitive values, literally or as regular expressions
+     * @param  patternNames     names of predefined patterns
+     * @param  customPatterns   custom patterns with the {@code [PROPERTY_NAME]} placeholder
+     */
+    public void reloadRules(final Collection<String> fieldNames, final Collection<String> patternNames,
+                            final Collection<String> customPatterns) {
+        if (!isNull(ruleSetRef)) {
+            final var owner = ruleSetOwner();
+            if (isNull(owner)) {
+                throw new IncorrectConfigurationException(UNKNOWN_RULE_SET_FMT.formatted(ruleSetRef));
+            }
+            owner.reloadRules(fieldNames, patternNames, customPatterns);
+            return;
+        }
+        final var newFieldNames = new LinkedHashSet<String>();
+        fieldNames.forEach(fieldName -> newFieldNames.add(validFieldName(fieldName)));
+        final var newPatterns = new LinkedHashSet<String>();
+        patternNames.forEach(patternName -> newPatterns.add(patternTemplateOf(patternName)));
+        customPatterns.forEach(pattern -> newPatterns.add(validCustomPattern(pattern)));
+        if (newFieldNames.isEmpty() || newPatterns.isEmpty()) {
+            throw new IncorrectConfigurationException(INCOMPLETE_RULES_MSG);
+        }
+        final var ruleSet = compile(newFieldNames, newPatterns, null);
+        synchronized (this) {
+            this.fieldNames.clear();
+            this.fieldNames.addAll(newFieldNames);
+            this.patterns.clear();
+            this.patterns.addAll(newPatterns);
+            // the rule set goes first, so a thread which sees an emptied cache masks with the new rules
+            this.compiledRuleSet = ruleSet;
+            this.streamingMasker = null;
+            this.resultCache = null;
+            this.cleanValueCache = null;
+        }
+    }
+
+    void reloadRulesFileIfModified() {
+        try {
+            final var rules = rulesFile.readIfModified();
+            if (rules.isPresent()) {
+                reloadRules(rules.get().fieldNames(), rules.get().patternNames(), rules.get().customPatterns());
+                addInfo(RULES_RELOADED_FMT.formatted(rulesFile.path()));
+            }
+        } catch (final IOException | RuntimeException ex) {
+            addError(RULES_RELOAD_FAILED_FMT.formatted(rulesFile.path()), ex);
+        }
+    }
+
+    protected abstract String maskLogMessage(final String str);
+
+    /**
+     * Regular expressions used to detect sensitive values, compiled according to the configured compile mode.
+     */
+    List<SensitiveValuePattern> getSensitiveValuePatterns() {
+        return getCompiledRuleSet().patterns();
+    }
+
+    CompiledRuleSet getCompiledRuleSet() {
+        if (!isNull(ruleSetRef)) {
+            final var owner = ruleSetOwner();
+            if (!isNull(owner)) {
+                return owner.getCompiledRuleSet();
+            }
+            // a decorator referencing a rule set declares no rules, so its own rule set masks nothing
+        }
+        var result = compiledRuleSet;
+        if (isNull(result)) {
+            synchronized (this) {
+                result = compiledRuleSet;
+                if (isNull(result)) {
+                    result = compile(fieldNames, patterns, loadRuleSetDescriptor());
+                    compiledRuleSet = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the referenced rule set once, the owner stays in use after it was stopped.
+     * @return the decorator declaring the referenced rule set, {@code null} when none is registered yet
+     */
+    private AbstractSensitiveDataDecorator ruleSetOwner() {
+        var owner = ruleSetOwner;
+        if (isNull(owner)) {
+            owner = SharedRuleSets.of(getContext()).owner(ruleSetRef);
+            if (isNull(owner)) {
+                if (!unknownRuleSetReported) {
+                    unknownRuleSetReported = true;
+                    addError(UNKNOWN_RULE_SET_FMT.formatted(ruleSetRef));
+                }
+                return null;
+            }
+            ruleSetOwner = owner;
+        }
+        return owner;
+    }
+
+    private CompiledRuleSet compile(final Collection<String> fieldNames, final Collection<String> patterns,
+                                    final RuleSetDescriptor descriptor) {
+        return CompiledRuleSet.compile(fieldNames, patterns, compileMode, matchingEngine,
+                new RegexLimits(regexTimeoutMillis, timeoutPolicy, circuitBreakerThreshold, circuitBreakerCoolDownMillis,
+                        scanBudgetMillis), metrics, descriptor);
+    }
+
+    /**
+     * @return {@code null} when no descriptor is configured or it cannot be used for the configured rules
+     */
+    private RuleSetDescriptor loadRuleSetDescriptor() {
+        if (isNull(precompiledRuleSet)) {
+            return null;
+        }
+        final var contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final var classLoader = isNull(contextClassLoader) ? AbstractSensitiveDataDecorator.class.getClassLoader() : contextClassLoader;
+        try (var input = classLoader.getResourceAsStream(precompiledRuleSet)) {
+            if (isNull(input)) {
+                addInfo(PRECOMPILED_RULE_SET_MISSING_FMT.formatted(precompiledRuleSet));
+                return null;
+            }
+            final var descriptor = RuleSetDescriptor.read(input);
+            if (!descriptor.fingerprint().equals(RuleSetDescriptor.fingerprint(fieldNames, patterns, compileMode, matchingEngine))) {
+                addWarn(PRECOMPILED_RULE_SET_OUTDATED_FMT.formatted(precompiledRuleSet));
+                return null;
+            }
+            return descriptor;
+        } catch (final IOException ex) {
+            addWarn(PRECOMPILED_RULE_SET_UNREADABLE_FMT.formatted(precompiledRuleSet), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the regular expressions compiled from the configured rules as a descriptor loaded by
+     * {@link #addPrecompiledRuleSet(String)}.
+     */
+    void writeRuleSetDescriptor(final OutputStream output) throws IOException {
+        final var ruleSet = compile(fieldNames, patterns, null);
+        RuleSetDescriptor.write(RuleSetDescriptor.fingerprint(fieldNames, patterns, compileMode, matchingEngine),
+                ruleSet.patterns(), output);
+    }
+
+    /**
+     * Compiles the configuration into an immutable rule set, so the first masked value does not pay for it
+     * and configuration errors surface while Logback starts. Called by Logback once the element is configured.
+     * A configuration changed afterwards is compiled again on first use.
+     */
+    @Override
+    public void start() {
+        if (started) {
+            return;
+        }
+        if (!isNull(ruleSetRef) && (!fieldNames.isEmpty() || !patterns.isEmpty() || !isNull(rulesFile) || !isNull(ruleSetName))) {
+            addError(RULE_SET_REF_WITH_RULES_FMT.formatted(ruleSetRef));
+            return;
+        }
+        if (!isNull(rulesFile)) {
+            reloadRulesFileIfModified();
+            rulesFileWatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "SensitiveDataRulesFileWatcher-" + rulesFile.path().getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            rulesFileWatcher.scheduleWithFixedDelay(this::reloadRulesFileIfModified, rulesFileCheckIntervalMillis,
+                    rulesFileCheckIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (isNull(ruleSetRef)) {
+            getCompiledRuleSet();
+        }
+        getPathRules();
+        if (!isNull(ruleSetName)) {
+            final var previous = SharedRuleSets.of(getContext()).register(ruleSetName, this);
+            if (!isNull(previous) && previous != this && previous.isStarted()) {
+                addWarn(RULE_SET_REPLACED_FMT.formatted(ruleSetName));
+            }
+        }
+        if (!isNull(metricsJmxName) && !isNull(metrics)) {
+            metrics.registerInJmx(metricsJmxName);
+        }
+        started = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!isNull(rulesFileWatcher)) {
+            rulesFileWatcher.shutdownNow();
+            rulesFileWatcher = null;
+        }
+        if (!isNull(ruleSetName)) {
+            SharedRuleSets.of(getContext()).unregister(ruleSetName, this);
+        }
+        if (!isNull(metricsJmxName) && !isNull(metrics)) {
+            metrics.unregisterFromJmx(metricsJmxName);
+        }
+        started = false;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Drops everything compiled or cached for the previous configuration.
+     */
+    void configurationChanged() {
+        this.ruleSetOwner = null;
+        this.unknownRuleSetReported = false;
+        this.compiledRuleSet = null;
+        this.streamingMasker = null;
+        this.resultCache = null;
+        this.cleanValueCache = null;
+    }
+
+    private Object maskStreaming(final CharSequence value) {
+        var masker = streamingMasker;
+        if (isNull(masker)) {
+            masker = new StreamingMasker(this, streamingMaxValueLength);
+            streamingMasker = masker;
+        }
+        return masker.mask(value);
+    }
+
+    CleanValueCache getCleanValueCache() {
+        if (!isNull(ruleSetRef)) {
+            final var owner = ruleSetOwner();
+            return isNull(owner) ? null : owner.getCleanValueCache();
+        }
+        if (cleanValueCacheSize == 0) {
+            return null;
+        }
+        var result = cleanValueCache;
+        if (isNull(result)) {
+            result = new CleanValueCache(cleanValueCacheSize);
+            cleanValueCache = result;
+        }
+        return result;
+    }
+
+    /**
+     * The cache is bound to the rule set it was created for, so rules reloaded by the decorator declaring a shared
+     * rule set drop the masked values cached by the decorators referencing it.
+     */
+    private MaskingResultCache getResultCache() {
+        if (resultCacheSize == 0) {
+            return null;
+        }
+        final var ruleSet = getCompiledRuleSet();
+        var result = resultCache;
+        if (isNull(result) || result.ruleSet() != ruleSet) {
+            result = new RuleSetResultCache(ruleSet, new MaskingResultCache(resultCacheSize, resultCacheMaxBytes));
+            resultCache = result;
+        }
+        return result.cache();
+    }
+
+    private record RuleSetResultCache(CompiledRuleSet ruleSet, MaskingResultCache cache) {
+    }
+
+    PathRules getPathRules() {
+        var result = pathRules;
+        if (isNull(result)) {
+            result = new PathRules(pathBindings);
+            pathRules = result;
+        }
+        return result;
+    }
+
+    private static String validFieldName(final String fieldName) {
+        if (isBlank(fieldName)) {
+            throw new IncorrectConfigurationException(INVALID_FIELD_NAME_FMT.formatted(fieldName));
+        }
+        if (FieldNameAutomaton.isLiteral(fieldName)) {
+            return fieldName;
+        }
+        try {
+            Pattern.compile(fieldName);
+        } catch (final PatternSyntaxException ex) {
+            throw new IncorrectConfigurationException(INVALID_FIELD_NAME_FMT.formatted(fieldName));
+        }
+        return fieldName;
+    }
+
+    private static String patternTemplateOf(final String predefinedPatternName) {
         if (validatePatternName(predefinedPatternName)) {
             throw new IncorrectConfigurationException(UNKNOWN_PATTERN_NAME_FMT.formatted(
                                 SensitiveDataPatternFactory.SensitiveValuePatterns.getSensitivePatternsNames()));
         }
-        final var pattern = SensitiveDataPatternFactory.SensitiveValuePatterns.valueOf(predefinedPatternName).getPatternTemplate();
-        this.patterns.add(pattern);
+        return SensitiveDataPatternFactory.SensitiveValuePatterns.valueOf(predefinedPatternName).getPatternTemplate();
     }
 
-    public void addCustomPattern(final String pattern) {
+    private static String validCustomPattern(final String pattern) {
         if (validatePattern(pattern)) {
             throw new IncorrectConfigurationException(INVALID_CUSTOM_PATERN_MSG);
         }
-        this.patterns.add(pattern);
+        return pattern;
     }
 
-    protected abstract String maskLogMessage(final String str);
-
-    private Collection<Pattern> asPropertyNamePatterns(final String propertyName) {
-        return patterns.stream().map(pattern -> patternFactory.create(propertyName, pattern)).toList();
-    }
-
-    private boolean validatePattern(final String pattern) {
+    private static boolean validatePattern(final String pattern) {
         return isBlank(pattern) || notContainMarker(pattern);
     }
 
-    private boolean validatePatternName(final String predefinedPatternName) {
+    private static boolean validatePatternName(final String predefinedPatternName) {
         return isBlank(predefinedPatternName) || SensitiveDataPatternFactory.SensitiveValuePatterns.isValidName(predefinedPatternName);
     }
 
@@ -107,6 +995,21 @@ public abstract class AbstractSensitiveDataDecorator implements ValueMasker {
         return !pattern.contains(SensitiveDataPatternFactory.PROPERTY_NAME_MARKER);
     }
 
+    private static boolean parseBoolean(final String value, final String errorFormat) {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IncorrectConfigurationException(errorFormat.formatted(value));
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static long parseLong(final String value, final String errorFormat) {
+        try {
+            return Long.parseLong(isNull(value) ? "" : value.trim());
+        } catch (final NumberFormatException ex) {
+            throw new IncorrectConfigurationException(errorFormat.formatted(value));
+        }
+    }
+
     private static boolean isBlank(final String str) {
         return isNull(str) || str.isBlank();
     }
@@ -0,0 +1,79 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans a large input split into chunks on the common {@link ForkJoinPool}. Chunks end just after a whitespace
+ * or comma where there is one close to the nominal end, so a match rarely starts right at a chunk start.
+ * Each chunk is scanned for matches anchored in it, reading the input beyond it as far as the matches need,
+ * so the chunks overlap only as much as the matches crossing their ends.
+ */
+final class ChunkedScanTask extends RecursiveTask<SensitiveValueSpans> {
+    private static final int MAX_BOUNDARY_SHIFT = 256;
+
+    private final CompiledRuleSet ruleSet;
+    private final String input;
+    private final int[] boundaries;
+    private final int firstChunk;
+    private final int lastChunk;
+
+    private ChunkedScanTask(final CompiledRuleSet ruleSet, final String input, final int[] boundaries,
+                            final int firstChunk, final int lastChunk) {
+        this.ruleSet = ruleSet;
+        this.input = input;
+        this.boundaries = boundaries;
+        this.firstChunk = firstChunk;
+        this.lastChunk = lastChunk;
+    }
+
+    /**
+     * @return spans found in the input, not sorted and with overlaps not resolved
+     */
+    static SensitiveValueSpans scan(final CompiledRuleSet ruleSet, final String input, final int chunkSize) {
+        final var boundaries = boundaries(input, chunkSize);
+        return ForkJoinPool.commonPool().invoke(new ChunkedScanTask(ruleSet, input, boundaries, 0, boundaries.length - 2));
+    }
+
+    static int[] boundaries(final String input, final int chunkSize) {
+        final var result = new int[input.length() / chunkSize + 2];
+        var count = 1;
+        var position = 0;
+        while (input.length() - position > chunkSize) {
+            position = safeBoundary(input, position + chunkSize);
+            result[count++] = position;
+        }
+        if (position < input.length()) {
+            result[count++] = input.length();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int safeBoundary(final String input, final int position) {
+        final var limit = Math.min(input.length(), position + MAX_BOUNDARY_SHIFT);
+        for (int i = position; i < limit; i++) {
+            final var c = input.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                return i + 1;
+            }
+        }
+        return position;
+    }
+
+    @Override
+    protected SensitiveValueSpans compute() {
+        if (firstChunk == lastChunk) {
+            final var spans = new SensitiveValueSpans();
+            ruleSet.findSensitiveValues(input, boundaries[firstChunk], boundaries[firstChunk + 1], spans);
+            return spans;
+        }
+        final var middle = (firstChunk + lastChunk) >>> 1;
+        final var left = new ChunkedScanTask(ruleSet, input, boundaries, firstChunk, middle);
+        left.fork();
+        final var right = new ChunkedScanTask(ruleSet, input, boundaries, middle + 1, lastChunk).compute();
+        final var result = left.join();
+        result.addAll(right);
+        return result;
+    }
+}
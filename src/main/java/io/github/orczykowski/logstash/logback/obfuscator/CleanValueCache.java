@@ -0,0 +1,41 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+/**
+ * Fixed-size, direct-mapped set of values known to contain no sensitive data, e.g. logger names or constant messages.
+ * Each slot holds the value itself, so a lookup confirms it with {@link String#equals(Object)} and a hash collision
+ * can never make an unscanned value look clean. A colliding value simply replaces the previous one.
+ * Slots are read and written without locks: a racing reader sees either the old or the new immutable string,
+ * and a lookup allocates nothing since strings cache their hash code.
+ */
+final class CleanValueCache {
+    static final int MAX_VALUE_LENGTH = 1024;
+
+    private final String[] slots;
+    private final int mask;
+
+    CleanValueCache(final int size) {
+        final var capacity = Integer.highestOneBit(Math.max(1, size - 1) << 1);
+        this.slots = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    boolean contains(final String value) {
+        final var cached = slots[slot(value)];
+        return cached == value || (cached != null && cached.equals(value));
+    }
+
+    void add(final String value) {
+        if (value.length() <= MAX_VALUE_LENGTH) {
+            slots[slot(value)] = value;
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    private int slot(final String value) {
+        final var hash = value.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Immutable snapshot of everything compiled from the decorator configuration that is needed to mask a value.
+ * Finders are kept in a flat array, as they run for every masked value.
+ */
+final class CompiledRuleSet {
+    private static final SensitiveDataPatternFactory patternFactory = new SensitiveDataPatternFactory();
+
+    private final SensitiveValueFinder[] finders;
+    private final List<SensitiveValuePattern> patterns;
+    private final FieldNameAutomaton prefilter;
+    private final Set<String> literalFieldNames;
+    private final Pattern fieldNamePattern;
+    private final int longestKeyLength;
+    private final boolean valuesFollowFieldNames;
+    private final Utf8SensitiveValueFinder utf8Finder;
+
+    private CompiledRuleSet(final List<SensitiveValueFinder> finders, final List<SensitiveValuePattern> patterns,
+                            final FieldNameAutomaton prefilter, final Collection<String> fieldNames,
+                            final Collection<String> patternTemplates,
+                            final SensitiveDataPatternFactory.MatchingEngine matchingEngine,
+                            final SensitiveDataMetrics metrics) {
+        this.finders = finders.toArray(SensitiveValueFinder[]::new);
+        this.patterns = List.copyOf(patterns);
+        this.prefilter = prefilter;
+        this.utf8Finder = createUtf8Finder(fieldNames, patternTemplates, matchingEngine, metrics);
+        this.longestKeyLength = fieldNames.stream().mapToInt(String::length).max().orElse(0)
+                + patternTemplates.stream()
+                .mapToInt(template -> template.length() - SensitiveDataPatternFactory.PROPERTY_NAME_MARKER.length())
+                .max().orElse(0);
+        this.literalFieldNames = fieldNames.stream()
+                .filter(FieldNameAutomaton::isLiteral)
+                .collect(Collectors.toUnmodifiableSet());
+        final var regexFieldNames = fieldNames.stream()
+                .filter(fieldName -> !FieldNameAutomaton.isLiteral(fieldName))
+                .map("(?:%s)"::formatted)
+                .collect(Collectors.joining("|"));
+        this.fieldNamePattern = regexFieldNames.isEmpty() ? null : Pattern.compile(regexFieldNames);
+        this.valuesFollowFieldNames = patternTemplates.stream()
+                .noneMatch(SensitiveDataPatternFactory::capturesBeforePropertyName);
+    }
+
+    static CompiledRuleSet compile(final Collection<String> fieldNames,
+                                   final Collection<String> patternTemplates,
+                                   final SensitiveDataPatternFactory.CompileMode compileMode,
+                                   final SensitiveDataPatternFactory.MatchingEngine matchingEngine,
+                                   final RegexLimits regexLimits,
+                                   final SensitiveDataMetrics metrics) {
+        return compile(fieldNames, patternTemplates, compileMode, matchingEngine, regexLimits, metrics, null);
+    }
+
+    /**
+     * @param descriptor regular expressions generated at build time for the same configuration, {@code null} when none
+     */
+    static CompiledRuleSet compile(final Collection<String> fieldNames,
+                                   final Collection<String> patternTemplates,
+                                   final SensitiveDataPatternFactory.CompileMode compileMode,
+                                   final SensitiveDataPatternFactory.MatchingEngine matchingEngine,
+                                   final RegexLimits regexLimits,
+                                   final SensitiveDataMetrics metrics,
+                                   final RuleSetDescriptor descriptor) {
+        if (fieldNames.isEmpty() || patternTemplates.isEmpty()) {
+            return new CompiledRuleSet(List.of(), List.of(), null, fieldNames, patternTemplates, matchingEngine, metrics);
+        }
+        final var literalFieldNames = fieldNames.stream().allMatch(FieldNameAutomaton::isLiteral);
+        final var automaton = literalFieldNames ? FieldNameAutomaton.of(fieldNames) : null;
+        final var predefinedPatterns = EnumSet.noneOf(SensitiveDataPatternFactory.SensitiveValuePatterns.class);
+        final var regexTemplates = new ArrayList<String>();
+        for (final String template : patternTemplates) {
+            final var predefined = SensitiveDataPatternFactory.SensitiveValuePatterns.fromPatternTemplate(template);
+            if (literalFieldNames && matchingEngine != SensitiveDataPatternFactory.MatchingEngine.REGEX && predefined.isPresent()) {
+                predefinedPatterns.add(predefined.get());
+            } else {
+                regexTemplates.add(template);
+            }
+        }
+        final var finders = new ArrayList<SensitiveValueFinder>();
+        if (!predefinedPatterns.isEmpty()) {
+            finders.add(matchingEngine == SensitiveDataPatternFactory.MatchingEngine.TOKENIZER
+                    ? new TokenizerSensitiveValueFinder(FieldNameSet.of(fieldNames), predefinedPatterns, metrics)
+                    : new LinearSensitiveValueFinder(automaton, predefinedPatterns, metrics));
+        }
+        final var patterns = isNull(descriptor)
+                ? compilePatterns(fieldNames, regexTemplates, compileMode)
+                : descriptor.compilePatterns();
+        if (!patterns.isEmpty()) {
+            finders.add(new RegexSensitiveValueFinder(patterns, regexLimits, metrics));
+        }
+        // a match of a predefined pattern always contains the field name literally, which is not guaranteed
+        // for custom patterns (e.g. with inline flags) nor for field names given as regular expressions;
+        // engines other than regex already find field names in a single pass, so they need no prefilter
+        final var prefilterUseful = literalFieldNames && !patterns.isEmpty() && patternTemplates.stream()
+                .allMatch(SensitiveDataPatternFactory.SensitiveValuePatterns::isPatternTemplate);
+        return new CompiledRuleSet(finders, patterns, prefilterUseful ? automaton : null, fieldNames,
+                patternTemplates, matchingEngine, metrics);
+    }
+
+    private static Utf8SensitiveValueFinder createUtf8Finder(final Collection<String> fieldNames,
+                                                             final Collection<String> patternTemplates,
+                                                             final SensitiveDataPatternFactory.MatchingEngine matchingEngine,
+                                                             final SensitiveDataMetrics metrics) {
+        if (matchingEngine == SensitiveDataPatternFactory.MatchingEngine.REGEX
+                || !fieldNames.stream().allMatch(FieldNameAutomaton::isLiteral)
+                || !patternTemplates.stream().allMatch(SensitiveDataPatternFactory.SensitiveValuePatterns::isPatternTemplate)) {
+            return null;
+        }
+        final var predefinedPatterns = patternTemplates.stream()
+                .flatMap(pattern -> SensitiveDataPatternFactory.SensitiveValuePatterns.fromPatternTemplate(pattern).stream())
+                .collect(Collectors.toUnmodifiableSet());
+        return new Utf8SensitiveValueFinder(fieldNames, predefinedPatterns, metrics);
+    }
+
+    private static List<SensitiveValuePattern> compilePatterns(final Collection<String> fieldNames,
+                                                               final Collection<String> patternTemplates,
+                                                               final SensitiveDataPatternFactory.CompileMode compileMode) {
+        if (patternTemplates.isEmpty()) {
+            return List.of();
+        }
+        return switch (compileMode) {
+            case PER_FIELD_NAME -> patternFactory.createPerFieldName(fieldNames, patternTemplates);
+            case PER_PATTERN -> patternFactory.createPerPattern(fieldNames, patternTemplates);
+            case SINGLE -> patternFactory.createSingle(fieldNames, patternTemplates);
+        };
+    }
+
+    /**
+     * @return whether there are no rules, i.e. no field names or no patterns, so nothing is ever masked
+     */
+    boolean isEmpty() {
+        return finders.length == 0;
+    }
+
+    /**
+     * Regular expressions run by the regex engine.
+     */
+    List<SensitiveValuePattern> patterns() {
+        return patterns;
+    }
+
+    /**
+     * Finder working directly on UTF-8 encoded text, {@code null} when the rules need regular expressions.
+     */
+    Utf8SensitiveValueFinder utf8Finder() {
+        return utf8Finder;
+    }
+
+    /**
+     * @return {@code false} only when it is certain that none of the patterns can match the input
+     */
+    boolean mayContainSensitiveData(final CharSequence input) {
+        if (finders.length == 0) {
+            return false;
+        }
+        return isNull(prefilter) || prefilter.containsAnyFieldName(input);
+    }
+
+    /**
+     * Estimates the length of a match without the sensitive value from the lengths of the field names and
+     * the patterns. Field names and patterns given as regular expressions count with the length of the expression.
+     */
+    int longestKeyLength() {
+        return longestKeyLength;
+    }
+
+    /**
+     * Tells whether a structured field name is one of the configured field names, field names given as
+     * regular expressions have to match the whole name.
+     */
+    boolean isSensitiveFieldName(final String fieldName) {
+        if (literalFieldNames.contains(fieldName)) {
+            return true;
+        }
+        return !isNull(fieldNamePattern) && fieldNamePattern.matcher(fieldName).matches();
+    }
+
+    /**
+     * Field names are searched for ignoring case, as custom patterns may match them case-insensitively.
+     * Runs only when a pattern timed out, so it favours simplicity over speed.
+     * @return position of the first field name in the input, where no sensitive value can start before,
+     *         {@code 0} when field names are regular expressions and cannot be searched for literally or a custom
+     *         pattern captures its value before the field name
+     */
+    int firstFieldNameStart(final String input) {
+        if (!isNull(fieldNamePattern) || !valuesFollowFieldNames) {
+            return 0;
+        }
+        for (int i = 0; i < input.length(); i++) {
+            for (final String fieldName : literalFieldNames) {
+                if (input.regionMatches(true, i, fieldName, 0, fieldName.length())) {
+                    return i;
+                }
+            }
+        }
+        return input.length();
+    }
+
+    void findSensitiveValues(final String input, final SensitiveValueSpans spans) {
+        for (int i = 0; i < finders.length; i++) {
+            finders[i].find(input, spans);
+        }
+    }
+
+    /**
+     * Finds the values of the matches anchored in the given range, see {@link SensitiveValueFinder#find(String, int, int, SensitiveValueSpans)}.
+     */
+    void findSensitiveValues(final String input, final int from, final int to, final SensitiveValueSpans spans) {
+        for (int i = 0; i < finders.length; i++) {
+            finders[i].find(input, from, to, spans);
+        }
+    }
+}
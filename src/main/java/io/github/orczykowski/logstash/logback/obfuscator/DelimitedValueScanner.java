@@ -0,0 +1,183 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_BRACKETS;
+import static io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_DOUBLE_QUOTES;
+import static io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS;
+import static io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataPatternFactory.SensitiveValuePatterns.JSON;
+
+/**
+ * Reads the value following a field name the way the regexes of the predefined patterns do. A value ends at the
+ * first character excluded by the pattern, and every delimiter opening a value is such a character, so engines
+ * calling it for consecutive field names never scan a character twice for the same pattern.
+ * Engines add a value only for field names not starting inside the previous match of the same field name and
+ * pattern, see {@link FieldNameMatchEnds}.
+ * <p>
+ * UTF-8 encoded input is read the same way, as all delimiters are ASCII and bytes of multibyte UTF-8 sequences are
+ * never ASCII. Positions are then byte offsets.
+ */
+final class DelimitedValueScanner {
+    static final String JSON_SEPARATOR = "\":\"";
+    static final int NOT_FOUND = -1;
+
+    private final boolean json;
+    private final boolean squareBrackets;
+    private final boolean brackets;
+    private final boolean doubleQuotes;
+    private final LongAdder[] hits;
+
+    /**
+     * @param metrics metrics counting values found per pattern, {@code null} when metrics are disabled
+     */
+    DelimitedValueScanner(final Set<SensitiveDataPatternFactory.SensitiveValuePatterns> patterns,
+                          final SensitiveDataMetrics metrics) {
+        this.json = patterns.contains(JSON);
+        this.squareBrackets = patterns.contains(EQUAL_AND_SQUARE_BRACKETS);
+        this.brackets = patterns.contains(EQUAL_AND_BRACKETS);
+        this.doubleQuotes = patterns.contains(EQUAL_AND_DOUBLE_QUOTES);
+        if (metrics == null) {
+            this.hits = null;
+        } else {
+            final var values = SensitiveDataPatternFactory.SensitiveValuePatterns.values();
+            this.hits = new LongAdder[values.length];
+            for (final var pattern : values) {
+                hits[pattern.ordinal()] = metrics.patternHits(pattern.name());
+            }
+        }
+    }
+
+    boolean json() {
+        return json;
+    }
+
+    boolean anyEqualSign() {
+        return squareBrackets || brackets || doubleQuotes;
+    }
+
+    /**
+     * @return configured pattern whose delimiters follow the field name ending at the position, {@code null} when
+     * there is none. JSON additionally requires a quote before the field name, which depends on the field name.
+     */
+    SensitiveDataPatternFactory.SensitiveValuePatterns patternAfter(final String input, final int fieldNameEnd) {
+        if (fieldNameEnd + 1 >= input.length()) {
+            return null;
+        }
+        final var delimiter = input.charAt(fieldNameEnd);
+        if (delimiter == '"') {
+            return json && input.startsWith(JSON_SEPARATOR, fieldNameEnd) ? JSON : null;
+        }
+        if (delimiter != '=') {
+            return null;
+        }
+        return equalSignPattern(input.charAt(fieldNameEnd + 1));
+    }
+
+    private SensitiveDataPatternFactory.SensitiveValuePatterns equalSignPattern(final int opening) {
+        if (squareBrackets && opening == '[') {
+            return EQUAL_AND_SQUARE_BRACKETS;
+        } else if (brackets && opening == '(') {
+            return EQUAL_AND_BRACKETS;
+        } else if (doubleQuotes && opening == '"') {
+            return EQUAL_AND_DOUBLE_QUOTES;
+        }
+        return null;
+    }
+
+    /**
+     * Counterpart of {@link #patternAfter(String, int)} for UTF-8 encoded input.
+     */
+    SensitiveDataPatternFactory.SensitiveValuePatterns patternAfter(final byte[] input, final int fieldNameEnd) {
+        if (fieldNameEnd + 1 >= input.length) {
+            return null;
+        }
+        final var delimiter = input[fieldNameEnd];
+        if (delimiter == '"') {
+            return json && isJsonSeparator(input, fieldNameEnd) ? JSON : null;
+        }
+        if (delimiter != '=') {
+            return null;
+        }
+        return equalSignPattern(input[fieldNameEnd + 1]);
+    }
+
+    static boolean isJsonSeparator(final byte[] input, final int offset) {
+        return offset + 2 < input.length && input[offset + 1] == ':' && input[offset + 2] == '"';
+    }
+
+    /**
+     * Reads the value of "[PROPERTY_NAME]":"([^"]*)", [PROPERTY_NAME]=\[([^\]^\[]+)\], [PROPERTY_NAME]=\(([^\)^\(]+)\)
+     * or [PROPERTY_NAME]="([^"]+)". The match ends right after the value, with the closing delimiter.
+     * @return exclusive end of the value, {@link #NOT_FOUND} when the pattern does not match
+     */
+    int valueEnd(final String input, final int fieldNameEnd,
+                 final SensitiveDataPatternFactory.SensitiveValuePatterns pattern) {
+        final var valueStart = valueStart(fieldNameEnd, pattern);
+        return switch (pattern) {
+            case JSON -> input.indexOf('"', valueStart);
+            case EQUAL_AND_SQUARE_BRACKETS -> closed(input, valueStart, valueEnd(input, valueStart, ']', '^', '['), ']');
+            case EQUAL_AND_BRACKETS -> closed(input, valueStart, valueEnd(input, valueStart, ')', '^', '('), ')');
+            case EQUAL_AND_DOUBLE_QUOTES -> closed(input, valueStart, input.indexOf('"', valueStart), '"');
+        };
+    }
+
+    /**
+     * Counterpart of {@link #valueEnd(String, int, SensitiveDataPatternFactory.SensitiveValuePatterns)} for UTF-8
+     * encoded input.
+     */
+    int valueEnd(final byte[] input, final int fieldNameEnd,
+                 final SensitiveDataPatternFactory.SensitiveValuePatterns pattern) {
+        final var valueStart = valueStart(fieldNameEnd, pattern);
+        return switch (pattern) {
+            case JSON -> valueEnd(input, valueStart, '"', '"', '"');
+            case EQUAL_AND_SQUARE_BRACKETS -> closed(input, valueStart, valueEnd(input, valueStart, ']', '^', '['), ']');
+            case EQUAL_AND_BRACKETS -> closed(input, valueStart, valueEnd(input, valueStart, ')', '^', '('), ')');
+            case EQUAL_AND_DOUBLE_QUOTES -> closed(input, valueStart, valueEnd(input, valueStart, '"', '"', '"'), '"');
+        };
+    }
+
+    void addValue(final int fieldNameEnd, final int valueEnd,
+                  final SensitiveDataPatternFactory.SensitiveValuePatterns pattern, final SensitiveValueSpans spans) {
+        spans.add(valueStart(fieldNameEnd, pattern), valueEnd);
+        countHit(pattern);
+    }
+
+    private static int valueStart(final int fieldNameEnd, final SensitiveDataPatternFactory.SensitiveValuePatterns pattern) {
+        return fieldNameEnd + (pattern == JSON ? JSON_SEPARATOR.length() : 2);
+    }
+
+    private static int valueEnd(final String input, final int valueStart, final char first, final char second, final char third) {
+        for (int i = valueStart; i < input.length(); i++) {
+            final var c = input.charAt(i);
+            if (c == first || c == second || c == third) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private static int closed(final String input, final int valueStart, final int valueEnd, final char closing) {
+        return valueEnd > valueStart && input.charAt(valueEnd) == closing ? valueEnd : NOT_FOUND;
+    }
+
+    private static int valueEnd(final byte[] input, final int valueStart, final char first, final char second, final char third) {
+        for (int i = valueStart; i < input.length; i++) {
+            final var b = input[i];
+            if (b == first || b == second || b == third) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private static int closed(final byte[] input, final int valueStart, final int valueEnd, final char closing) {
+        return valueEnd > valueStart && input[valueEnd] == closing ? valueEnd : NOT_FOUND;
+    }
+
+    private void countHit(final SensitiveDataPatternFactory.SensitiveValuePatterns pattern) {
+        if (hits != null) {
+            hits[pattern.ordinal()].increment();
+        }
+    }
+}
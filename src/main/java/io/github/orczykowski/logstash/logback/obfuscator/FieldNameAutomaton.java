@@ -0,0 +1,197 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Aho-Corasick automaton over the configured field names. It finds all occurrences of all field names in a single
+ * pass over the input without any allocation, e.g. to tell whether at least one field name occurs in a value,
+ * so values without any field name can skip regex matching.
+ */
+final class FieldNameAutomaton {
+    static final int INITIAL_STATE = 0;
+    private static final int NO_STATE = -1;
+    private static final int NO_FIELD_NAME = -1;
+    private static final int[] NO_FIELD_NAMES = new int[0];
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failures;
+    private final int[][] fieldNameLengths;
+    private final int[][] fieldNameIds;
+    private final int fieldNameCount;
+    private final int longestFieldName;
+
+    private FieldNameAutomaton(final char[][] transitionChars, final int[][] transitionTargets,
+                               final int[] failures, final int[][] fieldNameLengths, final int[][] fieldNameIds,
+                               final int fieldNameCount) {
+        this.transitionChars = transitionChars;
+        this.transitionTargets = transitionTargets;
+        this.failures = failures;
+        this.fieldNameLengths = fieldNameLengths;
+        this.fieldNameIds = fieldNameIds;
+        this.fieldNameCount = fieldNameCount;
+        this.longestFieldName = Arrays.stream(fieldNameLengths).flatMapToInt(Arrays::stream).max().orElse(0);
+    }
+
+    /**
+     * Field names are placed into regexes as they are, so only names without regex meta characters can be
+     * searched for literally.
+     */
+    static boolean isLiteral(final String fieldName) {
+        for (int i = 0; i < fieldName.length(); i++) {
+            if (REGEX_META_CHARACTERS.indexOf(fieldName.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return !fieldName.isEmpty();
+    }
+
+    static FieldNameAutomaton of(final Collection<String> fieldNames) {
+        final var trie = new ArrayList<TreeMap<Character, Integer>>();
+        final var terminalLengths = new ArrayList<Integer>();
+        final var terminalIds = new ArrayList<Integer>();
+        trie.add(new TreeMap<>());
+        terminalLengths.add(0);
+        terminalIds.add(NO_FIELD_NAME);
+        var fieldNameCount = 0;
+        for (final String fieldName : fieldNames) {
+            var node = INITIAL_STATE;
+            for (int i = 0; i < fieldName.length(); i++) {
+                final var next = trie.get(node).get(fieldName.charAt(i));
+                if (next == null) {
+                    trie.add(new TreeMap<>());
+                    terminalLengths.add(0);
+                    terminalIds.add(NO_FIELD_NAME);
+                    trie.get(node).put(fieldName.charAt(i), trie.size() - 1);
+                    node = trie.size() - 1;
+                } else {
+                    node = next;
+                }
+            }
+            if (terminalIds.get(node) == NO_FIELD_NAME) {
+                terminalLengths.set(node, fieldName.length());
+                terminalIds.set(node, fieldNameCount++);
+            }
+        }
+        return build(trie, terminalLengths, terminalIds, fieldNameCount);
+    }
+
+    private static FieldNameAutomaton build(final List<TreeMap<Character, Integer>> trie, final List<Integer> terminalLengths,
+                                            final List<Integer> terminalIds, final int fieldNameCount) {
+        final var size = trie.size();
+        final var transitionChars = new char[size][];
+        final var transitionTargets = new int[size][];
+        final var failures = new int[size];
+        final var fieldNameLengths = new int[size][];
+        final var fieldNameIds = new int[size][];
+        for (int node = 0; node < size; node++) {
+            final var transitions = trie.get(node);
+            transitionChars[node] = new char[transitions.size()];
+            transitionTargets[node] = new int[transitions.size()];
+            var i = 0;
+            for (final var transition : transitions.entrySet()) {
+                transitionChars[node][i] = transition.getKey();
+                transitionTargets[node][i] = transition.getValue();
+                i++;
+            }
+        }
+        fieldNameLengths[INITIAL_STATE] = NO_FIELD_NAMES;
+        fieldNameIds[INITIAL_STATE] = NO_FIELD_NAMES;
+        final var queue = new ArrayDeque<Integer>();
+        for (final int child : transitionTargets[INITIAL_STATE]) {
+            failures[child] = INITIAL_STATE;
+            fieldNameLengths[child] = withTerminal(NO_FIELD_NAMES, terminalLengths.get(child), 0);
+            fieldNameIds[child] = withTerminal(NO_FIELD_NAMES, terminalIds.get(child), NO_FIELD_NAME);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int node = queue.poll();
+            for (int i = 0; i < transitionChars[node].length; i++) {
+                final var c = transitionChars[node][i];
+                final var child = transitionTargets[node][i];
+                var failure = failures[node];
+                var target = transition(transitionChars, transitionTargets, failure, c);
+                while (target == NO_STATE && failure != INITIAL_STATE) {
+                    failure = failures[failure];
+                    target = transition(transitionChars, transitionTargets, failure, c);
+                }
+                failures[child] = target == NO_STATE ? INITIAL_STATE : target;
+                fieldNameLengths[child] = withTerminal(fieldNameLengths[failures[child]], terminalLengths.get(child), 0);
+                fieldNameIds[child] = withTerminal(fieldNameIds[failures[child]], terminalIds.get(child), NO_FIELD_NAME);
+                queue.add(child);
+            }
+        }
+        return new FieldNameAutomaton(transitionChars, transitionTargets, failures, fieldNameLengths, fieldNameIds,
+                fieldNameCount);
+    }
+
+    private static int[] withTerminal(final int[] inherited, final int terminal, final int none) {
+        if (terminal == none) {
+            return inherited;
+        }
+        return IntStream.concat(IntStream.of(terminal), Arrays.stream(inherited)).toArray();
+    }
+
+    boolean containsAnyFieldName(final CharSequence input) {
+        var state = INITIAL_STATE;
+        for (int i = 0; i < input.length(); i++) {
+            state = nextState(state, input.charAt(i));
+            if (fieldNameLengths[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int nextState(final int state, final char c) {
+        var current = state;
+        var next = transition(transitionChars, transitionTargets, current, c);
+        while (next == NO_STATE && current != INITIAL_STATE) {
+            current = failures[current];
+            next = transition(transitionChars, transitionTargets, current, c);
+        }
+        return next == NO_STATE ? INITIAL_STATE : next;
+    }
+
+    /**
+     * @return lengths of all field names ending with the last character consumed to reach the state, longest first
+     */
+    int[] fieldNameLengths(final int state) {
+        return fieldNameLengths[state];
+    }
+
+    /**
+     * @return ids of the field names ending with the last character consumed to reach the state, in the order of
+     * {@link #fieldNameLengths(int)}
+     */
+    int[] fieldNameIds(final int state) {
+        return fieldNameIds[state];
+    }
+
+    /**
+     * @return number of distinct field names, ids are lower than it
+     */
+    int fieldNameCount() {
+        return fieldNameCount;
+    }
+
+    /**
+     * @return length of the longest field name, so the longest text determining a state
+     */
+    int longestFieldName() {
+        return longestFieldName;
+    }
+
+    private static int transition(final char[][] transitionChars, final int[][] transitionTargets,
+                                  final int node, final char c) {
+        final var index = Arrays.binarySearch(transitionChars[node], c);
+        return index < 0 ? NO_STATE : transitionTargets[node][index];
+    }
+}
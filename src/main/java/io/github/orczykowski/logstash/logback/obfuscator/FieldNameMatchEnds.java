@@ -0,0 +1,58 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Arrays;
+
+/**
+ * End of the last match of every field name and predefined pattern in the input being scanned. The regex of
+ * a field name and pattern resumes searching after its previous match, so a field name inside that match,
+ * e.g. the second one in {@code password="a password="b"}, is no anchor for it. Engines locating values by field
+ * names check every anchor here to find exactly the values the regexes find.
+ * One instance is reused by each thread and reset for every input in constant time.
+ */
+final class FieldNameMatchEnds {
+    private static final int PATTERNS = SensitiveDataPatternFactory.SensitiveValuePatterns.values().length;
+    private static final ThreadLocal<FieldNameMatchEnds> instances = ThreadLocal.withInitial(FieldNameMatchEnds::new);
+
+    private int[] ends = new int[0];
+    private int[] generations = new int[0];
+    private int generation;
+
+    private FieldNameMatchEnds() {
+    }
+
+    /**
+     * @param fieldNames number of field name ids used by the engine
+     * @return instance of the calling thread without any match
+     */
+    static FieldNameMatchEnds forInput(final int fieldNames) {
+        final var matchEnds = instances.get();
+        matchEnds.reset(fieldNames * PATTERNS);
+        return matchEnds;
+    }
+
+    private void reset(final int size) {
+        if (ends.length < size) {
+            ends = Arrays.copyOf(ends, size);
+            generations = Arrays.copyOf(generations, size);
+        }
+        if (++generation == 0) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Records the match of the field name and pattern unless it starts before the end of their previous match.
+     * @return whether the match was recorded
+     */
+    boolean record(final int fieldName, final SensitiveDataPatternFactory.SensitiveValuePatterns pattern,
+                   final int start, final int end) {
+        final var index = fieldName * PATTERNS + pattern.ordinal();
+        if (generations[index] == generation && start < ends[index]) {
+            return false;
+        }
+        generations[index] = generation;
+        ends[index] = end;
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * Open addressing hash set of literal field names answering whether a field name ends at a given position of the
+ * input. Hashes are computed from the last character backwards, so all candidate lengths are checked in one walk
+ * over at most {@link #maxLength} characters, without creating substrings. The slot of a field name is its id.
+ * A set created by {@link #ofUtf8} is looked up in UTF-8 encoded input instead.
+ */
+final class FieldNameSet {
+    static final int NOT_FOUND = -1;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final String[] names;
+    private final int[] hashes;
+    private final boolean[] lengths;
+    private final int maxLength;
+    private final int mask;
+
+    private FieldNameSet(final String[] names, final int[] hashes, final boolean[] lengths, final int maxLength) {
+        this.names = names;
+        this.hashes = hashes;
+        this.lengths = lengths;
+        this.maxLength = maxLength;
+        this.mask = names.length - 1;
+    }
+
+    static FieldNameSet of(final Collection<String> fieldNames) {
+        final var distinct = new LinkedHashSet<>(fieldNames);
+        final var capacity = Integer.highestOneBit(Math.max(2, distinct.size()) * 4 - 1);
+        final var names = new String[capacity];
+        final var hashes = new int[capacity];
+        final var maxLength = distinct.stream().mapToInt(String::length).max().orElse(0);
+        final var lengths = new boolean[maxLength + 1];
+        for (final String fieldName : distinct) {
+            final var hash = hash(fieldName, fieldName.length());
+            var slot = hash & (capacity - 1);
+            while (names[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            names[slot] = fieldName;
+            hashes[slot] = hash;
+            lengths[fieldName.length()] = true;
+        }
+        return new FieldNameSet(names, hashes, lengths, maxLength);
+    }
+
+    /**
+     * Creates the set looked up in UTF-8 encoded input. Each field name is kept with one character per byte of its
+     * UTF-8 encoding, so lengths are numbers of bytes.
+     */
+    static FieldNameSet ofUtf8(final Collection<String> fieldNames) {
+        return of(fieldNames.stream()
+                .map(fieldName -> new String(fieldName.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1))
+                .toList());
+    }
+
+    /**
+     * @param end       exclusive end of the field name in the input
+     * @param quoted    whether the field name must be directly preceded by a double quote
+     */
+    boolean containsEndingAt(final String input, final int end, final boolean quoted) {
+        return fieldNameEndingAt(input, end, quoted, 1) != NOT_FOUND;
+    }
+
+    /**
+     * Looks for field names ending at the position from the shortest one.
+     * @param minLength length of the shortest field name to look for
+     * @return id of the shortest field name ending at the position, {@link #NOT_FOUND} when there is none
+     */
+    int fieldNameEndingAt(final String input, final int end, final boolean quoted, final int minLength) {
+        var hash = 0;
+        var power = 1;
+        final var longest = Math.min(maxLength, end);
+        for (int length = 1; length <= longest; length++) {
+            hash += input.charAt(end - length) * power;
+            power *= HASH_MULTIPLIER;
+            if (length >= minLength && lengths[length]
+                    && (!quoted || (end - length > 0 && input.charAt(end - length - 1) == '"'))) {
+                final var slot = slot(hash, input, end - length, length);
+                if (slot != NOT_FOUND) {
+                    return slot;
+                }
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Counterpart of {@link #containsEndingAt(String, int, boolean)} for a set created by {@link #ofUtf8}.
+     */
+    boolean containsEndingAt(final byte[] input, final int end, final boolean quoted) {
+        return fieldNameEndingAt(input, end, quoted, 1) != NOT_FOUND;
+    }
+
+    /**
+     * Counterpart of {@link #fieldNameEndingAt(String, int, boolean, int)} for a set created by {@link #ofUtf8}.
+     */
+    int fieldNameEndingAt(final byte[] input, final int end, final boolean quoted, final int minLength) {
+        var hash = 0;
+        var power = 1;
+        final var longest = Math.min(maxLength, end);
+        for (int length = 1; length <= longest; length++) {
+            hash += (input[end - length] & 0xFF) * power;
+            power *= HASH_MULTIPLIER;
+            if (length >= minLength && lengths[length]
+                    && (!quoted || (end - length > 0 && input[end - length - 1] == '"'))) {
+                final var slot = slot(hash, input, end - length, length);
+                if (slot != NOT_FOUND) {
+                    return slot;
+                }
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    int length(final int fieldName) {
+        return names[fieldName].length();
+    }
+
+    /**
+     * @return upper bound of field name ids
+     */
+    int capacity() {
+        return names.length;
+    }
+
+    private int slot(final int hash, final String input, final int start, final int length) {
+        var slot = hash & mask;
+        while (names[slot] != null) {
+            if (hashes[slot] == hash && names[slot].length() == length && input.regionMatches(start, names[slot], 0, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    private int slot(final int hash, final byte[] input, final int start, final int length) {
+        var slot = hash & mask;
+        while (names[slot] != null) {
+            if (hashes[slot] == hash && names[slot].length() == length && regionMatches(input, start, names[slot])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    private static boolean regionMatches(final byte[] input, final int start, final String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if ((input[start + i] & 0xFF) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(final String fieldName, final int end) {
+        var hash = 0;
+        var power = 1;
+        for (int i = end - 1; i >= 0; i--) {
+            hash += fieldName.charAt(i) * power;
+            power *= HASH_MULTIPLIER;
+        }
+        return hash;
+    }
+}
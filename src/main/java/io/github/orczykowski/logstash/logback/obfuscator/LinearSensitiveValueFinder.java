@@ -0,0 +1,77 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Set;
+
+/**
+ * Engine for the predefined patterns running in time linear to the input length, so it needs no timeout.
+ * Field names are located by a {@link FieldNameAutomaton} and the delimiters around each of them are checked
+ * directly by the {@link DelimitedValueScanner}.
+ * Finds the values the regexes of the predefined patterns find in {@code PER_FIELD_NAME} compile mode for literal
+ * field names: a field name inside the previous match of the same field name and pattern is skipped, as its regex
+ * resumes searching after that match.
+ */
+final class LinearSensitiveValueFinder implements SensitiveValueFinder {
+    private final FieldNameAutomaton fieldNames;
+    private final DelimitedValueScanner valueScanner;
+
+    LinearSensitiveValueFinder(final FieldNameAutomaton fieldNames,
+                               final Set<SensitiveDataPatternFactory.SensitiveValuePatterns> patterns,
+                               final SensitiveDataMetrics metrics) {
+        this.fieldNames = fieldNames;
+        this.valueScanner = new DelimitedValueScanner(patterns, metrics);
+    }
+
+    /**
+     * Field names ending in the range are anchors. The automaton starts the length of the longest field name
+     * before the range, so it is in the same state at the start of the range as after reading the whole input.
+     * Matches before the range are not known, as they are not to the regex engine scanning the same range.
+     */
+    @Override
+    public void find(final String input, final int from, final int to, final SensitiveValueSpans spans) {
+        FieldNameMatchEnds matchEnds = null;
+        var state = FieldNameAutomaton.INITIAL_STATE;
+        for (int i = Math.max(0, from - fieldNames.longestFieldName()); i < to; i++) {
+            state = fieldNames.nextState(state, input.charAt(i));
+            if (i < from || fieldNames.fieldNameLengths(state).length == 0) {
+                continue;
+            }
+            final var fieldNameEnd = i + 1;
+            final var pattern = valueScanner.patternAfter(input, fieldNameEnd);
+            if (pattern == null) {
+                continue;
+            }
+            final var valueEnd = valueScanner.valueEnd(input, fieldNameEnd, pattern);
+            if (valueEnd == DelimitedValueScanner.NOT_FOUND) {
+                continue;
+            }
+            if (matchEnds == null) {
+                matchEnds = FieldNameMatchEnds.forInput(fieldNames.fieldNameCount());
+            }
+            if (recordMatches(input, fieldNameEnd, valueEnd, pattern, state, matchEnds)) {
+                valueScanner.addValue(fieldNameEnd, valueEnd, pattern, spans);
+            }
+        }
+    }
+
+    /**
+     * @return whether the match is recorded for at least one of the field names ending at the position
+     */
+    private boolean recordMatches(final String input, final int fieldNameEnd, final int valueEnd,
+                                  final SensitiveDataPatternFactory.SensitiveValuePatterns pattern, final int state,
+                                  final FieldNameMatchEnds matchEnds) {
+        final var lengths = fieldNames.fieldNameLengths(state);
+        final var ids = fieldNames.fieldNameIds(state);
+        var recorded = false;
+        for (int k = 0; k < lengths.length; k++) {
+            var start = fieldNameEnd - lengths[k];
+            if (pattern == SensitiveDataPatternFactory.SensitiveValuePatterns.JSON) {
+                if (start == 0 || input.charAt(start - 1) != '"') {
+                    continue;
+                }
+                start--;
+            }
+            recorded |= matchEnds.record(ids[k], pattern, start, valueEnd + 1);
+        }
+        return recorded;
+    }
+}
@@ -0,0 +1,431 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.spi.ScanException;
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.status.WarnStatus;
+import ch.qos.logback.core.util.OptionHelper;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Command line tool masking log files written before masking was enabled, one line at a time, with the value masker
+ * configured in a Logback configuration file. The input is memory-mapped in chunks ending at a line end, the chunks
+ * are masked in parallel and written out in order.
+ * <p>
+ * Usage: {@code java -cp <classpath> io.github.orczykowski.logstash.logback.obfuscator.LogFileObfuscator
+ * --config logback.xml [--threads n] input output}
+ * <p>
+ * The first {@code valueMasker} element of the configuration is used. Its elements are applied the way Logback applies
+ * them and it is started, so a rules file is read. Variables are substituted from the {@code property} elements with
+ * a name and a value, system properties and environment variables; a variable defined nowhere fails the tool. A rule
+ * set it references is taken from the {@code valueMasker} element declaring it. Path rules are skipped with a warning,
+ * as lines of a file have no JSON paths.
+ */
+public final class LogFileObfuscator {
+    static final String USAGE = "Usage: LogFileObfuscator --config <logback.xml> [--threads <n>] <input> <output>";
+    static final String MISSING_VALUE_MASKER_FMT = "No valueMasker element with a class attribute found in %s";
+    static final String UNSUPPORTED_VALUE_MASKER_FMT = "Value masker %s does not extend AbstractSensitiveDataDecorator";
+    static final String UNSUPPORTED_ELEMENT_FMT = "Unsupported value masker element: %s";
+    static final String VALUE_MASKER_NOT_STARTED_FMT = "Value masker configured in %s cannot be started: %s";
+    static final String NO_RULES_FMT = "Value masker configured in %s has no field names or patterns, so it masks nothing";
+    static final String UNKNOWN_RULE_SET_FMT = "No valueMasker element in %s declares the rule set %s";
+    static final String UNRESOLVED_VARIABLE_FMT = "Undefined variable in %s: %s";
+    static final String PATH_RULES_SKIPPED_FMT = "Skipped %d path rules of the value masker configured in %s, as lines of a file have no JSON paths";
+    private static final String RULE_SET_NAME_ELEMENT = "ruleSetName";
+    private static final String RULE_SET_REF_ELEMENT = "ruleSetRef";
+    static final String REPORT_FMT = "Masked %.1f MB in %.2f s (%.1f MB/s)%n";
+    static final String LINE_TOO_LONG_FMT = "Line starting at byte %d of the input is longer than %d bytes, which can be mapped at once";
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+    private static final String PATH_RULE_ELEMENT = "pathRule";
+    private static final String PROPERTY_ELEMENT = "property";
+    private static final double BYTES_IN_MB = 1024 * 1024;
+
+    private final AbstractSensitiveDataDecorator valueMasker;
+    private final Utf8SensitiveValueFinder utf8Finder;
+    private final int threads;
+    private final int chunkSize;
+    private final int maxChunkSize;
+
+    LogFileObfuscator(final AbstractSensitiveDataDecorator valueMasker, final int threads, final int chunkSize) {
+        this(valueMasker, threads, chunkSize, MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * @param maxChunkSize size of the longest chunk, which limits the length of a line
+     */
+    LogFileObfuscator(final AbstractSensitiveDataDecorator valueMasker, final int threads, final int chunkSize,
+                      final int maxChunkSize) {
+        this.valueMasker = valueMasker;
+        this.utf8Finder = valueMasker.getUtf8SensitiveValueFinder();
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public static void main(final String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * @return exit code of the tool
+     */
+    static int run(final String[] args, final PrintStream out, final PrintStream err) {
+        Path config = null;
+        var threads = Runtime.getRuntime().availableProcessors();
+        Path input = null;
+        Path output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config" -> config = Path.of(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    default -> {
+                        if (isNull(input)) {
+                            input = Path.of(args[i]);
+                        } else if (isNull(output)) {
+                            output = Path.of(args[i]);
+                        } else {
+                            throw new IllegalArgumentException(args[i]);
+                        }
+                    }
+                }
+            }
+        } catch (final RuntimeException ex) {
+            err.println(USAGE);
+            return 2;
+        }
+        if (isNull(config) || isNull(input) || isNull(output) || threads < 1) {
+            err.println(USAGE);
+            return 2;
+        }
+        final var context = new LoggerContext();
+        try {
+            final var valueMasker = loadValueMasker(config, context);
+            context.getStatusManager().getCopyOfStatusList().stream()
+                    .filter(status -> status.getLevel() == Status.WARN)
+                    .forEach(status -> err.println(status.getMessage()));
+            final var obfuscator = new LogFileObfuscator(valueMasker, threads, DEFAULT_CHUNK_SIZE);
+            final var start = System.nanoTime();
+            final var bytes = obfuscator.obfuscate(input, output);
+            final var seconds = (System.nanoTime() - start) / 1e9;
+            out.printf(REPORT_FMT, bytes / BYTES_IN_MB, seconds, bytes / BYTES_IN_MB / Math.max(seconds, 1e-9));
+            return 0;
+        } catch (final IOException | RuntimeException ex) {
+            err.println(ex.getMessage());
+            return 1;
+        } finally {
+            // stops the value maskers registered in it, e.g. the watcher of a rules file
+            context.stop();
+        }
+    }
+
+    /**
+     * Creates and starts the value masker from the first {@code valueMasker} element of a Logback configuration file,
+     * after the one declaring the rule set it references. Both are registered in the context, which stops them.
+     * Skipped path rules are reported as a warning status of the context.
+     */
+    static AbstractSensitiveDataDecorator loadValueMasker(final Path config, final LoggerContext context) throws IOException {
+        final var document = parse(config);
+        putProperties(document, context, config);
+        final var elements = document.getElementsByTagName("valueMasker");
+        final var element = firstValueMasker(elements, config);
+        final var ruleSetRef = childText(element, RULE_SET_REF_ELEMENT, context, config);
+        if (!isNull(ruleSetRef)) {
+            start(create(ruleSetOwner(elements, ruleSetRef, context, config), context, config), context, config);
+        }
+        final var valueMasker = create(element, context, config);
+        final var pathRules = element.getElementsByTagName(PATH_RULE_ELEMENT).getLength();
+        if (pathRules > 0) {
+            context.getStatusManager().add(new WarnStatus(PATH_RULES_SKIPPED_FMT.formatted(pathRules, config),
+                    LogFileObfuscator.class));
+        }
+        start(valueMasker, context, config);
+        if (valueMasker.getCompiledRuleSet().isEmpty()) {
+            throw new IncorrectConfigurationException(NO_RULES_FMT.formatted(config));
+        }
+        return valueMasker;
+    }
+
+    /**
+     * Creates the value masker from the first {@code valueMasker} element of a Logback configuration file, without
+     * starting it.
+     */
+    static AbstractSensitiveDataDecorator createValueMasker(final Path config) throws IOException {
+        final var document = parse(config);
+        final var context = new LoggerContext();
+        putProperties(document, context, config);
+        return create(firstValueMasker(document.getElementsByTagName("valueMasker"), config), context, config);
+    }
+
+    private static Document parse(final Path config) throws IOException {
+        try {
+            final var factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            return factory.newDocumentBuilder().parse(config.toFile());
+        } catch (final ParserConfigurationException | SAXException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Puts the properties defined with a name and a value into the context in the order of the file, so a value
+     * can use the ones defined before it. Properties read from files or resources are not supported.
+     */
+    private static void putProperties(final Document document, final Context context, final Path config) {
+        final var properties = document.getElementsByTagName(PROPERTY_ELEMENT);
+        for (int i = 0; i < properties.getLength(); i++) {
+            final var property = (Element) properties.item(i);
+            if (property.hasAttribute("name") && property.hasAttribute("value")) {
+                context.putProperty(substitute(property.getAttribute("name").trim(), context, config),
+                        substitute(property.getAttribute("value").trim(), context, config));
+            }
+        }
+    }
+
+    /**
+     * Substitutes variables the way Logback does, from the properties of the context, system properties and
+     * environment variables.
+     * @throws IncorrectConfigurationException when a variable without a default value is defined nowhere, instead of
+     * masking with the name of the variable
+     */
+    private static String substitute(final String value, final Context context, final Path config) {
+        if (!value.contains("${")) {
+            return value;
+        }
+        try {
+            final var substituted = OptionHelper.substVars(value, context);
+            if (substituted.contains(CoreConstants.UNDEFINED_PROPERTY_SUFFIX)) {
+                throw new IncorrectConfigurationException(UNRESOLVED_VARIABLE_FMT.formatted(config, value));
+            }
+            return substituted;
+        } catch (final ScanException | IllegalArgumentException ex) {
+            throw new IncorrectConfigurationException(UNRESOLVED_VARIABLE_FMT.formatted(config, value));
+        }
+    }
+
+    private static Element firstValueMasker(final NodeList elements, final Path config) {
+        final var element = elements.getLength() == 0 ? null : (Element) elements.item(0);
+        if (isNull(element) || element.getAttribute("class").isBlank()) {
+            throw new IncorrectConfigurationException(MISSING_VALUE_MASKER_FMT.formatted(config));
+        }
+        return element;
+    }
+
+    private static Element ruleSetOwner(final NodeList elements, final String ruleSetName, final Context context,
+                                        final Path config) {
+        for (int i = 0; i < elements.getLength(); i++) {
+            final var element = (Element) elements.item(i);
+            if (ruleSetName.equals(childText(element, RULE_SET_NAME_ELEMENT, context, config))
+                    && !element.getAttribute("class").isBlank()) {
+                return element;
+            }
+        }
+        throw new IncorrectConfigurationException(UNKNOWN_RULE_SET_FMT.formatted(config, ruleSetName));
+    }
+
+    private static String childText(final Element element, final String tagName, final Context context,
+                                    final Path config) {
+        final var children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element child && tagName.equals(child.getTagName())) {
+                return substitute(child.getTextContent().trim(), context, config);
+            }
+        }
+        return null;
+    }
+
+    private static AbstractSensitiveDataDecorator create(final Element element, final Context context, final Path config) {
+        final var valueMasker = instantiate(substitute(element.getAttribute("class").trim(), context, config));
+        final var children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element child && !PATH_RULE_ELEMENT.equals(child.getTagName())) {
+                apply(valueMasker, child.getTagName(), substitute(child.getTextContent().trim(), context, config));
+            }
+        }
+        return valueMasker;
+    }
+
+    /**
+     * Starts the value masker the way Logback does and fails on the errors it reports, e.g. an unreadable rules file,
+     * instead of masking with incomplete rules.
+     */
+    private static void start(final AbstractSensitiveDataDecorator valueMasker, final LoggerContext context, final Path config) {
+        valueMasker.setContext(context);
+        context.register(valueMasker);
+        final var statusesBefore = context.getStatusManager().getCount();
+        valueMasker.start();
+        final var errors = context.getStatusManager().getCopyOfStatusList().stream()
+                .skip(statusesBefore)
+                .filter(status -> status.getLevel() == Status.ERROR)
+                .map(status -> isNull(status.getThrowable())
+                        ? status.getMessage()
+                        : status.getMessage() + ": " + status.getThrowable().getMessage())
+                .collect(Collectors.joining("; "));
+        if (!valueMasker.isStarted() || !errors.isEmpty()) {
+            throw new IncorrectConfigurationException(VALUE_MASKER_NOT_STARTED_FMT.formatted(config, errors));
+        }
+    }
+
+    private static AbstractSensitiveDataDecorator instantiate(final String className) {
+        try {
+            final var type = Class.forName(className);
+            if (!AbstractSensitiveDataDecorator.class.isAssignableFrom(type)) {
+                throw new IncorrectConfigurationException(UNSUPPORTED_VALUE_MASKER_FMT.formatted(className));
+            }
+            return (AbstractSensitiveDataDecorator) type.getConstructor().newInstance();
+        } catch (final ReflectiveOperationException ex) {
+            throw new IncorrectConfigurationException(UNSUPPORTED_VALUE_MASKER_FMT.formatted(className));
+        }
+    }
+
+    private static void apply(final AbstractSensitiveDataDecorator valueMasker, final String name, final String value) {
+        final var property = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (final var method : valueMasker.getClass().getMethods()) {
+            if ((method.getName().equals("add" + property) || method.getName().equals("set" + property))
+                    && method.getParameterCount() == 1) {
+                final var type = method.getParameterTypes()[0];
+                if (type == String.class || type == int.class) {
+                    try {
+                        method.invoke(valueMasker, type == int.class ? Integer.parseInt(value) : value);
+                        return;
+                    } catch (final IllegalAccessException ex) {
+                        break;
+                    } catch (final InvocationTargetException ex) {
+                        if (ex.getCause() instanceof RuntimeException cause) {
+                            throw cause;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        throw new IncorrectConfigurationException(UNSUPPORTED_ELEMENT_FMT.formatted(name));
+    }
+
+    /**
+     * @return number of bytes read
+     */
+    long obfuscate(final Path input, final Path output) throws IOException {
+        final var executor = Executors.newFixedThreadPool(threads);
+        try (var in = FileChannel.open(input, StandardOpenOption.READ);
+             var out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var size = in.size();
+            final var pending = new ArrayDeque<Future<ByteBuffer>>();
+            var position = 0L;
+            while (position < size) {
+                final var chunk = mapChunk(in, position, size);
+                position += chunk.limit();
+                pending.add(executor.submit(() -> maskLines(chunk)));
+                // bounds the memory held by masked chunks waiting to be written
+                if (pending.size() >= threads * 2) {
+                    write(pending.poll(), out);
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+            }
+            return size;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Maps the input from the position to the last line end within the chunk size, or further when a line is longer.
+     * @throws IOException when no line end is found within the maximum chunk size
+     */
+    private MappedByteBuffer mapChunk(final FileChannel in, final long position, final long size) throws IOException {
+        var length = Math.min(chunkSize, size - position);
+        while (true) {
+            final var mapped = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (position + length == size) {
+                return mapped;
+            }
+            for (int i = (int) length - 1; i >= 0; i--) {
+                if (mapped.get(i) == '\n') {
+                    return mapped.limit(i + 1);
+                }
+            }
+            if (length >= maxChunkSize) {
+                throw new IOException(LINE_TOO_LONG_FMT.formatted(position, maxChunkSize));
+            }
+            length = Math.min(Math.min(length * 2, maxChunkSize), size - position);
+        }
+    }
+
+    private static void write(final Future<ByteBuffer> masked, final FileChannel out) throws IOException {
+        final ByteBuffer buffer;
+        try {
+            buffer = masked.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(ex.getCause());
+        }
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    ByteBuffer maskLines(final ByteBuffer chunk) {
+        final var output = new ByteArrayOutputStream(chunk.limit() + chunk.limit() / 8);
+        var lineStart = 0;
+        while (lineStart < chunk.limit()) {
+            var lineEnd = lineStart;
+            while (lineEnd < chunk.limit() && chunk.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            final var line = new byte[lineEnd - lineStart];
+            chunk.get(lineStart, line);
+            output.writeBytes(maskLine(line));
+            if (lineEnd < chunk.limit()) {
+                output.write('\n');
+            }
+            lineStart = lineEnd + 1;
+        }
+        return ByteBuffer.wrap(output.toByteArray());
+    }
+
+    private byte[] maskLine(final byte[] line) {
+        if (!isNull(utf8Finder)) {
+            return valueMasker.maskUtf8(line, utf8Finder);
+        }
+        final var text = new String(line, StandardCharsets.UTF_8);
+        final var masked = valueMasker.mask(null, text);
+        return masked == text ? line : masked.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logging event with the formatted message and the arguments masked, everything else is read from the original
+ * event. The original event has to be prepared for deferred processing.
+ */
+final class MaskedLoggingEvent implements ILoggingEvent {
+    private final ILoggingEvent event;
+    private final String formattedMessage;
+    private final Object[] argumentArray;
+
+    private MaskedLoggingEvent(final ILoggingEvent event, final String formattedMessage, final Object[] argumentArray) {
+        this.event = event;
+        this.formattedMessage = formattedMessage;
+        this.argumentArray = argumentArray;
+    }
+
+    /**
+     * @return the event itself when nothing has to be masked
+     */
+    static ILoggingEvent mask(final ILoggingEvent event, final AbstractSensitiveDataDecorator valueMasker) {
+        final var formattedMessage = event.getFormattedMessage();
+        final var maskedMessage = formattedMessage == null ? null : (String) valueMasker.mask(null, formattedMessage);
+        final var arguments = event.getArgumentArray();
+        final var maskedArguments = maskArguments(arguments, valueMasker);
+        if (maskedMessage == formattedMessage && maskedArguments == arguments) {
+            return event;
+        }
+        return new MaskedLoggingEvent(event, maskedMessage, maskedArguments);
+    }
+
+    private static Object[] maskArguments(final Object[] arguments, final AbstractSensitiveDataDecorator valueMasker) {
+        if (arguments == null) {
+            return null;
+        }
+        var result = arguments;
+        for (int i = 0; i < arguments.length; i++) {
+            // other arguments, e.g. structured arguments, are masked by the encoder while they are written
+            if (arguments[i] instanceof CharSequence argument) {
+                final var masked = valueMasker.mask(null, argument);
+                if (masked != argument) {
+                    if (result == arguments) {
+                        result = arguments.clone();
+                    }
+                    result[i] = masked;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getThreadName() {
+        return event.getThreadName();
+    }
+
+    @Override
+    public Level getLevel() {
+        return event.getLevel();
+    }
+
+    @Override
+    public String getMessage() {
+        return event.getMessage();
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return argumentArray;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return formattedMessage;
+    }
+
+    @Override
+    public String getLoggerName() {
+        return event.getLoggerName();
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return event.getLoggerContextVO();
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return event.getThrowableProxy();
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return event.getCallerData();
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return event.hasCallerData();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Marker getMarker() {
+        return event.getMarker();
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return event.getMarkerList();
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return event.getMDCPropertyMap();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getMdc() {
+        return event.getMdc();
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return event.getTimeStamp();
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return event.getNanoseconds();
+    }
+
+    @Override
+    public Instant getInstant() {
+        return event.getInstant();
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return event.getSequenceNumber();
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return event.getKeyValuePairs();
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        event.prepareForDeferredProcessing();
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded cache of masked log messages keyed by the original message. Entries are split into stripes which hold
+ * exactly the configured number of entries between them; a cache smaller than {@link #STRIPES} entries uses fewer
+ * stripes. Reads take no lock and only mark the entry as used. Writes lock their stripe, which evicts entries not
+ * used since it last passed them (second chance), an approximation of least recently used, once it exceeds its
+ * share of the entry or byte limit.
+ */
+final class MaskingResultCache {
+    static final int STRIPES = 16;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    // stored instead of messages without sensitive data, so a hit returns the very instance passed in
+    private static final String NOTHING_MASKED = new String("");
+
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    MaskingResultCache(final int maxEntries, final long maxBytes) {
+        final var stripeCount = Math.min(STRIPES, Integer.highestOneBit(Math.max(1, maxEntries)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(
+                    maxEntries / stripeCount + (i < maxEntries % stripeCount ? 1 : 0),
+                    maxBytes / stripeCount + (i < maxBytes % stripeCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * @param cacheable tells right after masking whether its result may be cached, e.g. it is not degraded by a timeout
+     * @return the cached result for the message or the result of masking it, which is cached when it fits the limits
+     */
+    String get(final String logMessage, final UnaryOperator<String> masking, final BooleanSupplier cacheable) {
+        final var stripe = stripes[spread(logMessage.hashCode()) & (stripes.length - 1)];
+        final var cached = stripe.get(logMessage);
+        if (cached != null) {
+            hits.increment();
+            return cached == NOTHING_MASKED ? logMessage : cached;
+        }
+        misses.increment();
+        final var masked = masking.apply(logMessage);
+        if (cacheable.getAsBoolean()) {
+            stripe.put(logMessage, masked == logMessage ? NOTHING_MASKED : masked);
+        }
+        return masked;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long sizeInBytes(final String logMessage, final String masked) {
+        return ENTRY_OVERHEAD_BYTES + (long) Character.BYTES * (logMessage.length() + masked.length());
+    }
+
+    private static final class Entry {
+        private final String logMessage;
+        private final String masked;
+        private final long size;
+        private volatile boolean used;
+
+        private Entry(final String logMessage, final String masked) {
+            this.logMessage = logMessage;
+            this.masked = masked;
+            this.size = sizeInBytes(logMessage, masked);
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        // guarded by lock, entries in the order the eviction passes them
+        private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+
+        private Stripe(final int maxEntries, final long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        private String get(final String logMessage) {
+            final var entry = entries.get(logMessage);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.used) {
+                // written only once per eviction pass, so hits do not keep invalidating the entry's cache line
+                entry.used = true;
+            }
+            return entry.masked;
+        }
+
+        private void put(final String logMessage, final String masked) {
+            final var entry = new Entry(logMessage, masked);
+            if (entry.size > maxBytes || maxEntries == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                // another thread may have cached the same message meanwhile, its result is the same
+                if (entries.putIfAbsent(logMessage, entry) != null) {
+                    return;
+                }
+                clock.addLast(entry);
+                bytes += entry.size;
+                while (entries.size() > maxEntries || bytes > maxBytes) {
+                    final var candidate = clock.pollFirst();
+                    if (candidate.used) {
+                        candidate.used = false;
+                        clock.addLast(candidate);
+                    } else {
+                        entries.remove(candidate.logMessage);
+                        bytes -= candidate.size;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
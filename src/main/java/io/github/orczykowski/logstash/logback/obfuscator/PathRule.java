@@ -0,0 +1,31 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds values on the given JSON paths to a separate value masker, e.g. to mask {@code mdc.*} with other rules
+ * than the rest of the event. Paths are dot separated field names, where {@code *} stands for any single field
+ * name and {@code **} for any number of them.
+ */
+public class PathRule {
+    private final List<String> paths = new ArrayList<>();
+    private AbstractSensitiveDataDecorator valueMasker;
+
+    public void addPath(final String path) {
+        PathRules.validatePath(path);
+        paths.add(path);
+    }
+
+    public void setValueMasker(final AbstractSensitiveDataDecorator valueMasker) {
+        this.valueMasker = valueMasker;
+    }
+
+    List<String> getPaths() {
+        return paths;
+    }
+
+    AbstractSensitiveDataDecorator getValueMasker() {
+        return valueMasker;
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import tools.jackson.core.TokenStreamContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Decides how a value is masked depending on its JSON path. Paths are matched with an automaton whose states are
+ * built on first use and cached per field name, so resolving the path of a value costs one map lookup per level
+ * of the {@link TokenStreamContext} parent chain and builds no path string. Only field names written literally in
+ * a path get their own transition, all other field names share one, so the cache is bounded by the configured
+ * paths rather than by the field names seen in logs.
+ */
+final class PathRules {
+    static final String INVALID_PATH_FMT = "Path must consist of field names, * or ** separated by dots, got: %s";
+    static final String ANY_FIELD_NAME = "*";
+    static final String ANY_FIELD_NAMES = "**";
+    private static final Pattern SEGMENT_SEPARATOR = Pattern.compile("\\.");
+
+    enum Action {
+        /**
+         * Value is searched for sensitive data with the rules of the decorator.
+         */
+        SCAN,
+        /**
+         * Value is never masked.
+         */
+        SKIP,
+        /**
+         * Value is masked by the value masker of a {@link PathRule}.
+         */
+        DELEGATE
+    }
+
+    static final class Binding {
+        private final String[] segments;
+        private final Action action;
+        private final AbstractSensitiveDataDecorator valueMasker;
+
+        Binding(final String path, final Action action, final AbstractSensitiveDataDecorator valueMasker) {
+            this.segments = SEGMENT_SEPARATOR.split(path, -1);
+            this.action = action;
+            this.valueMasker = valueMasker;
+        }
+
+        Action action() {
+            return action;
+        }
+
+        AbstractSensitiveDataDecorator valueMasker() {
+            return valueMasker;
+        }
+    }
+
+    private final Binding[] bindings;
+    private final Binding defaultBinding;
+    private final State initial;
+
+    /**
+     * @param bindings paths in order of precedence, the first binding matching a path wins
+     */
+    PathRules(final List<Binding> bindings) {
+        this.bindings = bindings.toArray(Binding[]::new);
+        final var scanOnlyBoundPaths = bindings.stream().anyMatch(binding -> binding.action == Action.SCAN);
+        // once any path is explicitly scanned, values on all other paths are not
+        this.defaultBinding = new Binding(ANY_FIELD_NAMES, scanOnlyBoundPaths ? Action.SKIP : Action.SCAN, null);
+        final var positions = new TreeSet<Long>();
+        for (int i = 0; i < this.bindings.length; i++) {
+            addWithClosure(positions, i, 0);
+        }
+        this.initial = new State(positions);
+    }
+
+    static void validatePath(final String path) {
+        if (isNull(path) || path.isBlank()
+                || Arrays.stream(SEGMENT_SEPARATOR.split(path, -1)).anyMatch(String::isEmpty)) {
+            throw new IncorrectConfigurationException(INVALID_PATH_FMT.formatted(path));
+        }
+    }
+
+    Binding resolve(final TokenStreamContext context) {
+        return state(context).binding;
+    }
+
+    private State state(final TokenStreamContext context) {
+        if (isNull(context)) {
+            return initial;
+        }
+        final var parentState = state(context.getParent());
+        final var fieldName = context.inObject() ? context.currentName() : null;
+        // arrays and the root add no field name to the path
+        return isNull(fieldName) ? parentState : parentState.next(fieldName);
+    }
+
+    private void addWithClosure(final TreeSet<Long> positions, final int binding, final int segment) {
+        positions.add(position(binding, segment));
+        final var segments = bindings[binding].segments;
+        if (segment < segments.length && ANY_FIELD_NAMES.equals(segments[segment])) {
+            addWithClosure(positions, binding, segment + 1);
+        }
+    }
+
+    private static long position(final int binding, final int segment) {
+        return ((long) binding << 32) | segment;
+    }
+
+    private final class State {
+        private final long[] positions;
+        private final Binding binding;
+        private final ConcurrentHashMap<String, State> transitions = new ConcurrentHashMap<>();
+        private volatile State otherFieldNames;
+
+        private State(final TreeSet<Long> positions) {
+            this.positions = positions.stream().mapToLong(Long::longValue).toArray();
+            this.binding = matchedBinding();
+        }
+
+        private Binding matchedBinding() {
+            for (final long position : positions) {
+                final var binding = bindings[(int) (position >>> 32)];
+                if ((int) position == binding.segments.length) {
+                    return binding;
+                }
+            }
+            return defaultBinding;
+        }
+
+        private State next(final String fieldName) {
+            final var cached = transitions.get(fieldName);
+            if (!isNull(cached)) {
+                return cached;
+            }
+            if (!isLiteralSegment(fieldName)) {
+                return otherFieldNames();
+            }
+            return transitions.computeIfAbsent(fieldName, this::computeNext);
+        }
+
+        private State otherFieldNames() {
+            var state = otherFieldNames;
+            if (isNull(state)) {
+                // a name matching no literal segment only advances wildcards, concurrent builds are equal
+                state = computeNext(null);
+                otherFieldNames = state;
+            }
+            return state;
+        }
+
+        private boolean isLiteralSegment(final String fieldName) {
+            for (final long position : positions) {
+                final var segments = bindings[(int) (position >>> 32)].segments;
+                final var segment = (int) position;
+                if (segment < segments.length && segments[segment].equals(fieldName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private State computeNext(final String fieldName) {
+            final var nextPositions = new TreeSet<Long>();
+            for (final long position : positions) {
+                final var bindingIndex = (int) (position >>> 32);
+                final var segment = (int) position;
+                final var segments = bindings[bindingIndex].segments;
+                if (segment == segments.length) {
+                    continue;
+                }
+                if (ANY_FIELD_NAMES.equals(segments[segment])) {
+                    addWithClosure(nextPositions, bindingIndex, segment);
+                } else if (ANY_FIELD_NAME.equals(segments[segment]) || segments[segment].equals(fieldName)) {
+                    addWithClosure(nextPositions, bindingIndex, segment + 1);
+                }
+            }
+            return new State(nextPositions);
+        }
+    }
+}
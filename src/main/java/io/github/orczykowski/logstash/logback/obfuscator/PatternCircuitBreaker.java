@@ -0,0 +1,47 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops running a pattern that timed out a number of times in a row until a cool-down period passes.
+ * After the cool-down the pattern runs again, and a single further timeout stops it for another period.
+ */
+final class PatternCircuitBreaker {
+    private final int threshold;
+    private final long coolDownNanos;
+    private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+    private volatile boolean open;
+    private volatile long closesAtNanos;
+
+    PatternCircuitBreaker(final int threshold, final long coolDownMillis) {
+        this.threshold = threshold;
+        this.coolDownNanos = TimeUnit.MILLISECONDS.toNanos(coolDownMillis);
+    }
+
+    boolean isOpen() {
+        if (!open) {
+            return false;
+        }
+        if (System.nanoTime() - closesAtNanos < 0) {
+            return true;
+        }
+        consecutiveTimeouts.set(threshold - 1);
+        open = false;
+        return false;
+    }
+
+    void recordSuccess() {
+        // avoids writing the shared counter on the common path
+        if (consecutiveTimeouts.get() != 0) {
+            consecutiveTimeouts.set(0);
+        }
+    }
+
+    void recordTimeout() {
+        if (consecutiveTimeouts.incrementAndGet() >= threshold) {
+            closesAtNanos = System.nanoTime() + coolDownNanos;
+            open = true;
+        }
+    }
+}
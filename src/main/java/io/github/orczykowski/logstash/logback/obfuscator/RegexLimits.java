@@ -0,0 +1,54 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+/**
+ * Limits of the time regular expressions may take and what happens when a value exceeds them.
+ */
+final class RegexLimits {
+    static final int NO_CIRCUIT_BREAKER = 0;
+    static final int NO_SCAN_BUDGET = 0;
+
+    private final int timeoutMillis;
+    private final SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerCoolDownMillis;
+    private final int scanBudgetMillis;
+
+    RegexLimits(final int timeoutMillis, final SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy,
+                final int circuitBreakerThreshold, final long circuitBreakerCoolDownMillis,
+                final int scanBudgetMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.timeoutPolicy = timeoutPolicy;
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerCoolDownMillis = circuitBreakerCoolDownMillis;
+        this.scanBudgetMillis = scanBudgetMillis;
+    }
+
+    static RegexLimits of(final int timeoutMillis) {
+        return new RegexLimits(timeoutMillis, SensitiveDataPatternFactory.TimeoutPolicy.THROW, NO_CIRCUIT_BREAKER, 0, NO_SCAN_BUDGET);
+    }
+
+    int timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy() {
+        return timeoutPolicy;
+    }
+
+    /**
+     * @return time all regular expressions together may spend on a single value, {@link #NO_SCAN_BUDGET} when unlimited
+     */
+    int scanBudgetMillis() {
+        return scanBudgetMillis;
+    }
+
+    /**
+     * @return a new circuit breaker for a pattern, {@code null} when circuit breaking is disabled
+     */
+    PatternCircuitBreaker newCircuitBreaker() {
+        if (circuitBreakerThreshold == NO_CIRCUIT_BREAKER) {
+            return null;
+        }
+        return new PatternCircuitBreaker(circuitBreakerThreshold, circuitBreakerCoolDownMillis);
+    }
+}
@@ -5,7 +5,18 @@ public class RegexProcessingTimeoutException extends SensitiveDataObfuscatorExce
                     Regex processing timed out after %dms while evaluating pattern '%s'.
                     Consider simplifying the pattern or increasing the regexTimeoutMillis value.""";
 
+    static final String PREALLOCATED_MSG = "Regex processing timed out";
+    /**
+     * Thrown instead of a new exception when the timeout is handled internally by a timeout policy,
+     * so a timeout costs neither formatting the message nor filling in the stack trace.
+     */
+    static final RegexProcessingTimeoutException PREALLOCATED = new RegexProcessingTimeoutException();
+
     RegexProcessingTimeoutException(final int timeoutMillis, final String regularExpression) {
         super(REGEX_TIMED_OUT_FMT.formatted(timeoutMillis, regularExpression));
     }
+
+    private RegexProcessingTimeoutException() {
+        super(PREALLOCATED_MSG, false);
+    }
 }
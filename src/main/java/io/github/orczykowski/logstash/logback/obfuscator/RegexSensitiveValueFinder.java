@@ -0,0 +1,130 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+
+/**
+ * Engine based on {@link java.util.regex}, able to run any pattern. Every pattern is guarded by the regex timeout,
+ * because backtracking may make matching time grow exponentially with the input length, and all patterns together
+ * by the scan budget, when configured. A timeout either propagates
+ * or, depending on the timeout policy, drops the values found by the pattern and marks the spans as timed out.
+ * Each thread reuses its matchers, bound to its {@link ScanBudget}, so a value without matches is scanned without
+ * any allocation.
+ */
+final class RegexSensitiveValueFinder implements SensitiveValueFinder {
+    private final SensitiveValuePattern[] patterns;
+    private final int regexTimeoutMillis;
+    private final int scanBudgetMillis;
+    private final SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy;
+    private final PatternCircuitBreaker[] circuitBreakers;
+    private final LongAdder[] hits;
+    private final LongAdder[] timeouts;
+    private final ThreadLocal<Matcher[]> matchers;
+
+    /**
+     * @param metrics metrics counting values found and timeouts per regular expression, {@code null} when disabled
+     */
+    RegexSensitiveValueFinder(final List<SensitiveValuePattern> patterns, final RegexLimits limits,
+                              final SensitiveDataMetrics metrics) {
+        this.patterns = patterns.toArray(SensitiveValuePattern[]::new);
+        this.regexTimeoutMillis = limits.timeoutMillis();
+        this.scanBudgetMillis = limits.scanBudgetMillis();
+        this.timeoutPolicy = limits.timeoutPolicy();
+        this.matchers = ThreadLocal.withInitial(() -> new Matcher[this.patterns.length]);
+        this.circuitBreakers = patterns.stream().map(pattern -> limits.newCircuitBreaker()).toArray(PatternCircuitBreaker[]::new);
+        if (metrics == null) {
+            this.hits = null;
+            this.timeouts = null;
+        } else {
+            this.hits = patterns.stream().map(pattern -> metrics.patternHits(pattern.pattern().pattern())).toArray(LongAdder[]::new);
+            this.timeouts = patterns.stream().map(pattern -> metrics.patternTimeouts(pattern.pattern().pattern())).toArray(LongAdder[]::new);
+        }
+    }
+
+    List<SensitiveValuePattern> patterns() {
+        return List.of(patterns);
+    }
+
+    /**
+     * Starts of matches in the range are anchors. Matching looks beyond the range bounds, so the range does not change
+     * the meaning of anchors and lookarounds. Near the start of the range a match may be found inside a match starting
+     * before it, which the whole input scan skips, so such a value may be masked additionally.
+     */
+    @Override
+    public void find(final String input, final int from, final int to, final SensitiveValueSpans spans) {
+        final var handleTimeouts = timeoutPolicy != SensitiveDataPatternFactory.TimeoutPolicy.THROW;
+        final var budget = ScanBudget.start(input, scanBudgetMillis, regexTimeoutMillis, handleTimeouts);
+        try {
+            find(input, from, to, spans, budget);
+        } finally {
+            budget.finish();
+        }
+    }
+
+    private void find(final String input, final int from, final int to, final SensitiveValueSpans spans,
+                      final ScanBudget budget) {
+        final var threadMatchers = matchers.get();
+        for (int i = 0; i < patterns.length; i++) {
+            final var pattern = patterns[i];
+            final var circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker != null && circuitBreaker.isOpen()) {
+                // the exception is built only to be thrown, an open breaker must not cost a stack walk per value
+                final var ex = timeoutPolicy == SensitiveDataPatternFactory.TimeoutPolicy.THROW
+                        ? new RegexProcessingTimeoutException(regexTimeoutMillis, pattern.pattern().pattern())
+                        : RegexProcessingTimeoutException.PREALLOCATED;
+                if (!onTimeout(spans, spans.size(), ex)) {
+                    return;
+                }
+                continue;
+            }
+            final var sizeBefore = spans.size();
+            budget.forPattern(pattern.pattern());
+            var matcher = threadMatchers[i];
+            if (matcher == null) {
+                matcher = pattern.pattern().matcher(budget);
+                threadMatchers[i] = matcher;
+            }
+            matcher.region(from, input.length()).useTransparentBounds(true).useAnchoringBounds(false);
+            try {
+                while (matcher.find() && matcher.start() < to) {
+                    final var valueGroup = pattern.valueGroup(matcher);
+                    spans.add(matcher.start(valueGroup), matcher.end(valueGroup));
+                    if (hits != null) {
+                        hits[i].increment();
+                    }
+                    if (pattern.isMerged()) {
+                        // separate patterns find the overlapping match of another template, so the merged one does too
+                        matcher.region(Math.max(matcher.start(valueGroup), matcher.start() + 1), input.length());
+                    }
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.recordSuccess();
+                }
+            } catch (final RegexProcessingTimeoutException ex) {
+                if (timeouts != null) {
+                    timeouts[i].increment();
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.recordTimeout();
+                }
+                if (!onTimeout(spans, sizeBefore, ex)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the remaining patterns should still run
+     */
+    private boolean onTimeout(final SensitiveValueSpans spans, final int sizeBefore, final RegexProcessingTimeoutException ex) {
+        if (timeoutPolicy == SensitiveDataPatternFactory.TimeoutPolicy.THROW) {
+            throw ex;
+        }
+        spans.removeFrom(sizeBefore);
+        spans.markTimedOut();
+        return timeoutPolicy == SensitiveDataPatternFactory.TimeoutPolicy.SKIP_PATTERN
+                || timeoutPolicy == SensitiveDataPatternFactory.TimeoutPolicy.TRUNCATE_VALUE;
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Compact form of the regular expressions of a rule set, generated at build time by
+ * {@link RuleSetDescriptorGenerator}, so they are not built from the field names and pattern templates again
+ * at startup. Merging templates in {@code SINGLE} compile mode, which compiles every template on its own first,
+ * is skipped as well. Java cannot restore a compiled {@link Pattern} without compiling it, so the final regular
+ * expressions are compiled when the descriptor is loaded, in parallel on the common
+ * {@link java.util.concurrent.ForkJoinPool}.
+ * A descriptor is used only when its fingerprint matches the configuration, otherwise the rules are compiled
+ * as usual.
+ */
+final class RuleSetDescriptor {
+    static final String INVALID_DESCRIPTOR_MSG = "Not a rule set descriptor or written by another version";
+    private static final int MAGIC = 0x52554C45;
+    private static final int VERSION = 1;
+
+    private final String fingerprint;
+    private final List<String> regexes;
+    private final List<int[]> valueGroups;
+
+    private RuleSetDescriptor(final String fingerprint, final List<String> regexes, final List<int[]> valueGroups) {
+        this.fingerprint = fingerprint;
+        this.regexes = regexes;
+        this.valueGroups = valueGroups;
+    }
+
+    /**
+     * Identifies the configuration the regular expressions are built from, the order of field names
+     * and templates included, as it determines the order and the groups of merged regular expressions.
+     */
+    static String fingerprint(final Collection<String> fieldNames, final Collection<String> patternTemplates,
+                              final SensitiveDataPatternFactory.CompileMode compileMode,
+                              final SensitiveDataPatternFactory.MatchingEngine matchingEngine) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update((compileMode.name() + '\0' + matchingEngine.name() + '\0').getBytes(StandardCharsets.UTF_8));
+            for (final String fieldName : fieldNames) {
+                digest.update((fieldName + '\0').getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 1);
+            for (final String template : patternTemplates) {
+                digest.update((template + '\0').getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static void write(final String fingerprint, final List<SensitiveValuePattern> patterns,
+                      final OutputStream output) throws IOException {
+        final var data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(fingerprint);
+        data.writeInt(patterns.size());
+        for (final SensitiveValuePattern pattern : patterns) {
+            final var regex = pattern.pattern().pattern().getBytes(StandardCharsets.UTF_8);
+            data.writeInt(regex.length);
+            data.write(regex);
+            final var groups = pattern.valueGroups();
+            data.writeInt(groups.length);
+            for (final int group : groups) {
+                data.writeInt(group);
+            }
+        }
+        data.flush();
+    }
+
+    static RuleSetDescriptor read(final InputStream input) throws IOException {
+        final var data = new DataInputStream(input);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException(INVALID_DESCRIPTOR_MSG);
+        }
+        final var fingerprint = data.readUTF();
+        final var size = data.readInt();
+        final var regexes = new ArrayList<String>(size);
+        final var valueGroups = new ArrayList<int[]>(size);
+        for (int i = 0; i < size; i++) {
+            final var regex = new byte[data.readInt()];
+            data.readFully(regex);
+            regexes.add(new String(regex, StandardCharsets.UTF_8));
+            final var groups = new int[data.readInt()];
+            for (int j = 0; j < groups.length; j++) {
+                groups[j] = data.readInt();
+            }
+            valueGroups.add(groups);
+        }
+        return new RuleSetDescriptor(fingerprint, List.copyOf(regexes), List.copyOf(valueGroups));
+    }
+
+    String fingerprint() {
+        return fingerprint;
+    }
+
+    List<SensitiveValuePattern> compilePatterns() {
+        final var patterns = new SensitiveValuePattern[regexes.size()];
+        IntStream.range(0, patterns.length).parallel().forEach(i ->
+                patterns[i] = new SensitiveValuePattern(Pattern.compile(regexes.get(i)), valueGroups.get(i)));
+        return List.of(patterns);
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.classic.LoggerContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Build time tool writing the regular expressions compiled from the rules of a value masker into a descriptor, which
+ * the value masker loads at startup with {@code <precompiledRuleSet>} instead of building them again.
+ * <p>
+ * Usage: {@code java -cp <classpath> io.github.orczykowski.logstash.logback.obfuscator.RuleSetDescriptorGenerator
+ * --config logback.xml output}
+ * <p>
+ * The first {@code valueMasker} element of the configuration is used, the same way as by {@link LogFileObfuscator}.
+ */
+public final class RuleSetDescriptorGenerator {
+    static final String USAGE = "Usage: RuleSetDescriptorGenerator --config <logback.xml> <output>";
+    static final String REPORT_FMT = "Wrote rule set descriptor %s%n";
+
+    private RuleSetDescriptorGenerator() {
+    }
+
+    public static void main(final String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * @return exit code of the tool
+     */
+    static int run(final String[] args, final PrintStream out, final PrintStream err) {
+        if (args.length != 3 || !"--config".equals(args[0])) {
+            err.println(USAGE);
+            return 2;
+        }
+        final var config = Path.of(args[1]);
+        final var output = Path.of(args[2]);
+        final var context = new LoggerContext();
+        try {
+            final var valueMasker = LogFileObfuscator.loadValueMasker(config, context);
+            if (!isNull(output.getParent())) {
+                Files.createDirectories(output.getParent());
+            }
+            try (var stream = Files.newOutputStream(output)) {
+                valueMasker.writeRuleSetDescriptor(stream);
+            }
+            out.printf(REPORT_FMT, output);
+            return 0;
+        } catch (final IOException | RuntimeException ex) {
+            err.println(ex.getMessage());
+            return 1;
+        } finally {
+            context.stop();
+        }
+    }
+}
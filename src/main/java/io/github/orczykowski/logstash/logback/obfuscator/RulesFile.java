@@ -0,0 +1,79 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * External file with the field names and patterns of a decorator, one rule per line in the form {@code name=value},
+ * where the name is one of the configuration elements {@code fieldName}, {@code patternName} or
+ * {@code customPattern}. Blank lines and lines starting with {@code #} are skipped.
+ * <pre>
+ * patternName=JSON
+ * fieldName=password
+ * customPattern=[PROPERTY_NAME]:(\S+)
+ * </pre>
+ * The file is read again only after its modification time changed. Instances are used by one thread at a time.
+ */
+final class RulesFile {
+    static final String INVALID_RULE_FMT = "Line %d of %s is not a fieldName, patternName or customPattern rule: %s";
+    private static final String FIELD_NAME = "fieldName";
+    private static final String PATTERN_NAME = "patternName";
+    private static final String CUSTOM_PATTERN = "customPattern";
+
+    private final Path path;
+    private FileTime lastModified;
+
+    record Rules(List<String> fieldNames, List<String> patternNames, List<String> customPatterns) {
+    }
+
+    RulesFile(final Path path) {
+        this.path = path;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * The modification time is remembered before the rules are parsed, so a file with an invalid rule is reported
+     * once and not read again until it is changed.
+     * @return rules of the file when it was modified since the last call, empty otherwise
+     */
+    Optional<Rules> readIfModified() throws IOException {
+        final var modified = Files.getLastModifiedTime(path);
+        if (modified.equals(lastModified)) {
+            return Optional.empty();
+        }
+        lastModified = modified;
+        return Optional.of(read());
+    }
+
+    Rules read() throws IOException {
+        final var fieldNames = new ArrayList<String>();
+        final var patternNames = new ArrayList<String>();
+        final var customPatterns = new ArrayList<String>();
+        final var lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            final var line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final var separator = line.indexOf('=');
+            final var name = separator < 0 ? line : line.substring(0, separator).strip();
+            final var value = separator < 0 ? "" : line.substring(separator + 1).strip();
+            switch (name) {
+                case FIELD_NAME -> fieldNames.add(value);
+                case PATTERN_NAME -> patternNames.add(value);
+                case CUSTOM_PATTERN -> customPatterns.add(value);
+                default -> throw new IncorrectConfigurationException(INVALID_RULE_FMT.formatted(i + 1, path, line));
+            }
+        }
+        return new Rules(List.copyOf(fieldNames), List.copyOf(patternNames), List.copyOf(customPatterns));
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Time all regular expressions together may spend on a single value. One instance per thread is reused for every
+ * value and every pattern, so guarding the patterns allocates no wrapper and matchers bound to it can be reused.
+ * The regex timeout, when set, still limits each pattern separately within the budget. Without a budget
+ * ({@link RegexLimits#NO_SCAN_BUDGET}) only the regex timeout applies, and without both the clock is never read.
+ */
+final class ScanBudget implements CharSequence {
+    private static final ThreadLocal<ScanBudget> budgets = ThreadLocal.withInitial(ScanBudget::new);
+
+    private CharSequence inner;
+    private int budgetMillis;
+    private long budgetDeadlineNanos;
+    private int timeoutMillis;
+    private boolean preallocatedException;
+    private Pattern pattern;
+    private long deadlineNanos;
+    private boolean unlimited;
+    private int limitMillis;
+    private int readsUntilClockCheck;
+
+    /**
+     * Starts the budget of a value for the calling thread.
+     */
+    static ScanBudget start(final CharSequence input, final int budgetMillis, final int timeoutMillis,
+                            final boolean preallocatedException) {
+        final var budget = budgets.get();
+        budget.inner = input;
+        budget.budgetMillis = budgetMillis;
+        budget.budgetDeadlineNanos = budgetMillis == RegexLimits.NO_SCAN_BUDGET
+                ? 0L
+                : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        budget.timeoutMillis = timeoutMillis;
+        budget.preallocatedException = preallocatedException;
+        return budget;
+    }
+
+    /**
+     * Guards the next pattern with whichever ends first: the rest of the budget or the regex timeout.
+     */
+    ScanBudget forPattern(final Pattern pattern) {
+        final var budgeted = budgetMillis != RegexLimits.NO_SCAN_BUDGET;
+        this.pattern = pattern;
+        this.deadlineNanos = budgetDeadlineNanos;
+        this.limitMillis = budgetMillis;
+        this.unlimited = !budgeted && timeoutMillis == TimeoutRegexCharSequence.NO_TIMEOUT;
+        if (timeoutMillis != TimeoutRegexCharSequence.NO_TIMEOUT) {
+            final var patternDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            if (!budgeted || patternDeadlineNanos - deadlineNanos < 0) {
+                this.deadlineNanos = patternDeadlineNanos;
+                this.limitMillis = timeoutMillis;
+            }
+        }
+        this.readsUntilClockCheck = 0;
+        return this;
+    }
+
+    /**
+     * Releases the value, so the thread does not keep it reachable.
+     */
+    void finish() {
+        inner = null;
+        pattern = null;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (--readsUntilClockCheck < 0) {
+            checkDeadline();
+            readsUntilClockCheck = TimeoutRegexCharSequence.CLOCK_CHECK_INTERVAL - 1;
+        }
+        return inner.charAt(index);
+    }
+
+    private void checkDeadline() {
+        if (!unlimited && System.nanoTime() - deadlineNanos > 0) {
+            throw preallocatedException
+                    ? RegexProcessingTimeoutException.PREALLOCATED
+                    : new RegexProcessingTimeoutException(limitMillis, pattern.pattern());
+        }
+    }
+
+    @Override
+    public int length() {
+        return inner.length();
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        // matching never calls it
+        return inner.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return inner.toString();
+    }
+}
@@ -1,30 +1,44 @@
 package io.github.orczykowski.logstash.logback.obfuscator;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
-import java.util.regex.MatchResult;
-import java.util.regex.Pattern;
 
 public class SensitiveDataAsMaskDecorator extends AbstractSensitiveDataDecorator {
     private String mask = "********";
+    private byte[] utf8Mask = mask.getBytes(StandardCharsets.UTF_8);
+    private final SensitiveValueSpans.Replacement maskReplacement = this::appendMask;
+    private final SensitiveValueSpans.Utf8Replacement utf8MaskReplacement = this::appendUtf8Mask;
 
     public void addMask(final String mask) {
         if (Objects.isNull(mask)) {
             throw new IncorrectConfigurationException("Mask cannot be set as null");
         }
         this.mask = mask;
+        this.utf8Mask = mask.getBytes(StandardCharsets.UTF_8);
+        configurationChanged();
     }
 
     protected String maskLogMessage(final String logMessage) {
-        var maskedMessage = logMessage;
-        for (final Pattern pattern : sensitiveFieldNamePatterns) {
-            var matcher = matcherWithTimeout(pattern, maskedMessage);
-            maskedMessage = matcher.replaceAll(this::maskSensitiveData);
-        }
-        return maskedMessage;
+        return findSensitiveValues(logMessage).applyTo(logMessage, maskReplacement);
+    }
+
+    private void appendMask(final StringBuilder output, final String logMessage, final int start, final int end) {
+        output.append(mask);
+    }
+
+    @Override
+    SensitiveValueSpans.Replacement replacement() {
+        return maskReplacement;
+    }
+
+    @Override
+    SensitiveValueSpans.Utf8Replacement utf8Replacement() {
+        return utf8MaskReplacement;
     }
 
-    private String maskSensitiveData(final MatchResult matchResult) {
-        return matchResult.group(0).replace(matchResult.group(2), mask);
+    private void appendUtf8Mask(final ByteArrayOutputStream output, final byte[] logMessage, final int start, final int end) {
+        output.writeBytes(utf8Mask);
     }
 
 }
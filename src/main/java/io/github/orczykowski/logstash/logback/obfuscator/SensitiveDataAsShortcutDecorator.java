@@ -1,37 +1,52 @@
 package io.github.orczykowski.logstash.logback.obfuscator;
 
-import java.util.Collection;
-import java.util.Objects;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.stream.Stream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 
 public class SensitiveDataAsShortcutDecorator extends AbstractSensitiveDataDecorator {
+    private static final SensitiveValueSpans.Replacement shortcutReplacement = SensitiveDataAsShortcutDecorator::appendShortcut;
+    private static final SensitiveValueSpans.Utf8Replacement utf8ShortcutReplacement = SensitiveDataAsShortcutDecorator::appendUtf8Shortcut;
 
     protected String maskLogMessage(final String logMessage) {
-        var stringBuilder = new StringBuilder(logMessage);
-        sensitiveFieldNamePatterns.stream()
-                .map(pattern -> matcherWithTimeout(pattern, stringBuilder))
-                .map(Matcher::results)
-                .map(Stream::toList)
-                .flatMap(Collection::stream)
-                .forEach((match) -> maskSensitiveData(stringBuilder, match));
-        return stringBuilder.toString();
+        return findSensitiveValues(logMessage).applyTo(logMessage, shortcutReplacement);
     }
-    private String createShortcutFromValue(final String sensitiveData) {
-        if (Objects.isNull(sensitiveData) || sensitiveData.isBlank()) {
-            return sensitiveData;
+
+    private static void appendShortcut(final StringBuilder output, final String logMessage, final int start, final int end) {
+        if (isBlank(logMessage, start, end)) {
+            output.append(logMessage, start, end);
+            return;
         }
-        return String.format("%s-%d-%s", sensitiveData.charAt(0), sensitiveData.length(), sensitiveData.charAt(sensitiveData.length() - 1));
+        output.append(logMessage.charAt(start))
+                .append('-')
+                .append(end - start)
+                .append('-')
+                .append(logMessage.charAt(end - 1));
+    }
+
+    @Override
+    SensitiveValueSpans.Replacement replacement() {
+        return shortcutReplacement;
     }
 
-    private void maskSensitiveData(final StringBuilder stringBuilder, final MatchResult match) {
-        final var sensitiveData = match.group(2);
-        final var maskedData = createShortcutFromValue(sensitiveData);
+    @Override
+    SensitiveValueSpans.Utf8Replacement utf8Replacement() {
+        return utf8ShortcutReplacement;
+    }
 
-        final var startIndex = match.start(2);
-        final var endIndex = match.end(2);
+    private static void appendUtf8Shortcut(final ByteArrayOutputStream output, final byte[] logMessage, final int start, final int end) {
+        // the shortcut counts UTF-16 chars, so the value is decoded to produce exactly what the text variant produces
+        final var value = new String(logMessage, start, end - start, StandardCharsets.UTF_8);
+        final var shortcut = new StringBuilder();
+        appendShortcut(shortcut, value, 0, value.length());
+        output.writeBytes(shortcut.toString().getBytes(StandardCharsets.UTF_8));
+    }
 
-        stringBuilder.replace(startIndex, endIndex, maskedData);
+    private static boolean isBlank(final String logMessage, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(logMessage.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 }
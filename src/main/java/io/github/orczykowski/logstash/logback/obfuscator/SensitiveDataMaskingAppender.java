@@ -0,0 +1,390 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Appender masking the formatted message and the text arguments of events off the logging thread, before they reach
+ * the attached appenders. Events are put into a bounded queue and taken from it in batches by a dispatcher thread,
+ * which masks them, alone or together with worker threads, and passes them on in the order they were logged.
+ * When the queue is full, the logging thread waits or, with {@code neverBlock}, the event is dropped.
+ * An event which cannot be masked, e.g. because of a regex timeout, is dropped and never passed on unmasked.
+ * The rule set compiled by the value masker is shared with every other use of the value masker.
+ */
+public class SensitiveDataMaskingAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+    static final int DEFAULT_QUEUE_SIZE = 1024;
+    static final int DEFAULT_BATCH_SIZE = 64;
+    static final int DEFAULT_MAX_FLUSH_TIME_MILLIS = 1000;
+    static final String MISSING_VALUE_MASKER_MSG = "No value masker set for the sensitive data masking appender";
+    static final String MISSING_APPENDERS_MSG = "No attached appenders found for the sensitive data masking appender";
+    static final String INVALID_QUEUE_SIZE_FMT = "Queue size must be a positive value, got: %d";
+    static final String INVALID_BATCH_SIZE_FMT = "Batch size must be a positive value, got: %d";
+    static final String INVALID_WORKERS_FMT = "Number of workers must be a positive value, got: %d";
+    static final String MASKING_FAILED_MSG = "Masking an event failed, the event is dropped";
+    static final String FLUSH_TIMEOUT_FMT = "Masking appender stopped with %d events not passed on";
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder droppedEvents = new LongAdder();
+    private AbstractSensitiveDataDecorator valueMasker;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int workers = 1;
+    private boolean neverBlock;
+    private boolean includeCallerData;
+    private int maxFlushTimeMillis = DEFAULT_MAX_FLUSH_TIME_MILLIS;
+    private BlockingQueue<ILoggingEvent> queue;
+    private ExecutorService workerPool;
+    private Thread dispatcher;
+
+    public void setValueMasker(final AbstractSensitiveDataDecorator valueMasker) {
+        this.valueMasker = valueMasker;
+    }
+
+    /**
+     * @param  queueSize   maximum number of events waiting for masking (default: 1024)
+     */
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @param  batchSize   maximum number of events taken from the queue and masked at once (default: 64)
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param  workers   number of threads masking a batch, including the dispatcher thread (default: 1)
+     */
+    public void setWorkers(final int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * @param  neverBlock   whether to drop events instead of waiting when the queue is full (default: false)
+     */
+    public void setNeverBlock(final boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    /**
+     * @param  includeCallerData   whether to extract caller data on the logging thread, as it is lost afterwards (default: false)
+     */
+    public void setIncludeCallerData(final boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    /**
+     * @param  maxFlushTimeMillis   time in milliseconds {@link #stop()} waits for queued events to be passed on (default: 1000)
+     */
+    public void setMaxFlushTimeMillis(final int maxFlushTimeMillis) {
+        this.maxFlushTimeMillis = maxFlushTimeMillis;
+    }
+
+    /**
+     * @return number of events dropped because the queue was full or masking failed
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        final var errors = new ArrayList<String>();
+        if (isNull(valueMasker)) {
+            errors.add(MISSING_VALUE_MASKER_MSG);
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            errors.add(MISSING_APPENDERS_MSG);
+        }
+        if (queueSize < 1) {
+            errors.add(INVALID_QUEUE_SIZE_FMT.formatted(queueSize));
+        }
+        if (batchSize < 1) {
+            errors.add(INVALID_BATCH_SIZE_FMT.formatted(batchSize));
+        }
+        if (workers < 1) {
+            errors.add(INVALID_WORKERS_FMT.formatted(workers));
+        }
+        if (!errors.isEmpty()) {
+            errors.forEach(this::addError);
+            return;
+        }
+        // compiled up front, so the first events do not wait for it
+        valueMasker.getCompiledRuleSet();
+        queue = new ArrayBlockingQueue<>(queueSize);
+        workerPool = workers == 1 ? null : Executors.newFixedThreadPool(workers - 1, workerThreadFactory());
+        dispatcher = new Thread(this::dispatch, "SensitiveDataMaskingAppender-" + getName() + "-dispatcher");
+        dispatcher.setDaemon(true);
+        super.start();
+        dispatcher.start();
+    }
+
+    private ThreadFactory workerThreadFactory() {
+        final var threadNumber = new AtomicInteger();
+        return runnable -> {
+            final var thread = new Thread(runnable,
+                    "SensitiveDataMaskingAppender-" + getName() + "-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Waits up to {@code maxFlushTimeMillis} for queued events to be passed on, then interrupts the dispatcher,
+     * which drops the events left and shuts the workers down without waiting for them. The attached appenders are
+     * stopped only after the dispatcher finished, so no event is passed on to a stopped appender.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        join(dispatcher);
+        if (dispatcher.isAlive()) {
+            addWarn(FLUSH_TIMEOUT_FMT.formatted(queue.size()));
+            dispatcher.interrupt();
+            joinUninterruptibly(dispatcher);
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    private void join(final Thread thread) {
+        try {
+            thread.join(maxFlushTimeMillis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinUninterruptibly(final Thread thread) {
+        var interrupted = false;
+        try {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    protected void append(final ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+        if (neverBlock) {
+            if (!queue.offer(event)) {
+                droppedEvents.increment();
+            }
+            return;
+        }
+        putUninterruptibly(event);
+    }
+
+    /**
+     * Gives up when the appender is stopped meanwhile, as the dispatcher may be gone and the queue never drained.
+     */
+    private void putUninterruptibly(final ILoggingEvent event) {
+        var interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (queue.offer(event, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                    if (!isStarted()) {
+                        droppedEvents.increment();
+                        return;
+                    }
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The worker pool is shut down by the dispatcher, the only thread submitting to it, once it stops submitting.
+     * The dispatcher leaves with its interrupt flag set when it was interrupted.
+     */
+    private void dispatch() {
+        try {
+            dispatchBatches();
+        } finally {
+            if (workerPool != null) {
+                shutdownWorkers();
+            }
+        }
+    }
+
+    private void dispatchBatches() {
+        var batch = new ArrayList<ILoggingEvent>(batchSize);
+        var masked = new ILoggingEvent[batchSize];
+        while (true) {
+            final ILoggingEvent first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (!isStarted()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            if (maskBatch(batch, masked)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (masked[i] != null) {
+                        appenders.appendLoopOnAppenders(masked[i]);
+                        masked[i] = null;
+                    }
+                }
+                batch.clear();
+            } else {
+                // cancelled workers may still be reading the batch and writing the results, so both are left to them
+                batch = new ArrayList<>(batchSize);
+                masked = new ILoggingEvent[batchSize];
+            }
+        }
+    }
+
+    /**
+     * Workers are awaited up to {@code maxFlushTimeMillis} after the queue was flushed. When the dispatcher was
+     * interrupted, they are not awaited, as they only write to batches the dispatcher abandoned.
+     */
+    private void shutdownWorkers() {
+        if (Thread.currentThread().isInterrupted()) {
+            workerPool.shutdownNow();
+            return;
+        }
+        workerPool.shutdown();
+        try {
+            workerPool.awaitTermination(maxFlushTimeMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ex) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Masks contiguous slices of the batch on the worker threads and the first slice on the calling thread.
+     * @return whether the batch was masked, {@code false} when the dispatcher was interrupted meanwhile
+     */
+    private boolean maskBatch(final List<ILoggingEvent> batch, final ILoggingEvent[] masked) {
+        final var slices = workerPool == null ? 1 : Math.min(workers, batch.size());
+        if (slices == 1) {
+            mask(batch, masked, 0, batch.size());
+            return true;
+        }
+        final var sliceSize = (batch.size() + slices - 1) / slices;
+        final var futures = new ArrayList<Future<?>>(slices - 1);
+        for (int from = sliceSize; from < batch.size(); from += sliceSize) {
+            final var sliceFrom = from;
+            final var sliceTo = Math.min(from + sliceSize, batch.size());
+            futures.add(workerPool.submit(() -> mask(batch, masked, sliceFrom, sliceTo)));
+        }
+        mask(batch, masked, 0, sliceSize);
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            return true;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ex) {
+            addError(MASKING_FAILED_MSG, ex.getCause());
+        }
+        futures.forEach(future -> future.cancel(true));
+        droppedEvents.add(batch.size());
+        return false;
+    }
+
+    private void mask(final List<ILoggingEvent> batch, final ILoggingEvent[] masked, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                masked[i] = MaskedLoggingEvent.mask(batch.get(i), valueMasker);
+            } catch (final RuntimeException ex) {
+                masked[i] = null;
+                droppedEvents.increment();
+                addError(MASKING_FAILED_MSG, ex);
+            }
+        }
+    }
+
+    @Override
+    public void addAppender(final Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(final String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(final Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(final Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(final String name) {
+        return appenders.detachAppender(name);
+    }
+}
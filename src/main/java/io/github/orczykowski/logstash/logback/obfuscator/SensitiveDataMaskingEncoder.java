@@ -0,0 +1,103 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Encoder masking sensitive values in the bytes produced by another encoder, so the whole serialized event is
+ * masked and not only the values passed through a {@code ValueMasker}.
+ * When the value masker uses only predefined patterns, literal field names and a matching engine other than
+ * {@code REGEX}, the UTF-8 encoded output is masked byte by byte without decoding it and is returned as it is
+ * when nothing has to be masked. Otherwise the output is decoded, masked as text and encoded again.
+ * Delimiters are matched on the serialized form. When it is masked byte by byte, a quote escaped by the inner
+ * encoder ({@code \"}) does not end a quoted value; decoded output is matched by the patterns as they are.
+ * Rules reloaded by the value masker are taken over with the next event.
+ */
+public class SensitiveDataMaskingEncoder<E> extends EncoderBase<E> {
+    static final String MISSING_ENCODER_MSG = "No encoder set for the sensitive data masking encoder";
+    static final String MISSING_VALUE_MASKER_MSG = "No value masker set for the sensitive data masking encoder";
+
+    private Encoder<E> encoder;
+    private AbstractSensitiveDataDecorator valueMasker;
+    private Charset charset = StandardCharsets.UTF_8;
+    private boolean utf8;
+
+    public void setEncoder(final Encoder<E> encoder) {
+        this.encoder = encoder;
+    }
+
+    public void setValueMasker(final AbstractSensitiveDataDecorator valueMasker) {
+        this.valueMasker = valueMasker;
+    }
+
+    /**
+     * Charset of the inner encoder output, UTF-8 by default. Output in other charsets is always decoded before masking.
+     * @param  charset   name of the charset
+     */
+    public void setCharset(final String charset) {
+        this.charset = Charset.forName(charset);
+    }
+
+    @Override
+    public void start() {
+        var errors = 0;
+        if (isNull(encoder)) {
+            addError(MISSING_ENCODER_MSG);
+            errors++;
+        }
+        if (isNull(valueMasker)) {
+            addError(MISSING_VALUE_MASKER_MSG);
+            errors++;
+        }
+        if (errors > 0) {
+            return;
+        }
+        if (!encoder.isStarted()) {
+            encoder.start();
+        }
+        utf8 = StandardCharsets.UTF_8.equals(charset);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (!isNull(encoder) && encoder.isStarted()) {
+            encoder.stop();
+        }
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return encoder.headerBytes();
+    }
+
+    @Override
+    public byte[] encode(final E event) {
+        final var encoded = encoder.encode(event);
+        if (isNull(encoded) || encoded.length == 0) {
+            return encoded;
+        }
+        final var utf8Finder = utf8 ? valueMasker.getUtf8SensitiveValueFinder() : null;
+        if (utf8Finder != null) {
+            return valueMasker.maskUtf8(encoded, utf8Finder);
+        }
+        final var text = new String(encoded, charset);
+        final var masked = valueMasker.maskRecorded(text);
+        return masked == text ? encoded : masked.getBytes(charset);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return encoder.footerBytes();
+    }
+
+    boolean isMaskingUtf8Directly() {
+        return utf8 && valueMasker.getUtf8SensitiveValueFinder() != null;
+    }
+}
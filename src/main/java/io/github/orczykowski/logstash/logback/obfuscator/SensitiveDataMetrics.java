@@ -0,0 +1,140 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the work done by a decorator, collected only when metrics are enabled. Counters are {@link LongAdder}s,
+ * so threads masking at the same time do not contend on them, and per-pattern counters are looked up once when the
+ * patterns are compiled.
+ */
+public class SensitiveDataMetrics implements SensitiveDataMetricsMBean {
+    static final String JMX_DOMAIN = "io.github.orczykowski.logstash.logback.obfuscator";
+    static final String INVALID_JMX_NAME_FMT = "Cannot register metrics in JMX under name '%s': %s";
+    static final String JMX_UNREGISTER_FAILED_FMT = "Cannot unregister metrics from JMX under name '%s': %s";
+    // metrics registered under each name, so stopping a replaced decorator does not unregister its successor
+    private static final ConcurrentHashMap<String, SensitiveDataMetrics> REGISTERED = new ConcurrentHashMap<>();
+
+    private final LongAdder scannedMessages = new LongAdder();
+    private final LongAdder maskedMessages = new LongAdder();
+    private final LongAdder scanTimeNanos = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> patternHits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> patternTimeouts = new ConcurrentHashMap<>();
+
+    void recordScan(final long nanos, final boolean masked) {
+        scannedMessages.increment();
+        scanTimeNanos.add(nanos);
+        if (masked) {
+            maskedMessages.increment();
+        }
+    }
+
+    LongAdder patternHits(final String pattern) {
+        return patternHits.computeIfAbsent(pattern, key -> new LongAdder());
+    }
+
+    LongAdder patternTimeouts(final String pattern) {
+        return patternTimeouts.computeIfAbsent(pattern, key -> new LongAdder());
+    }
+
+    @Override
+    public long getScannedMessages() {
+        return scannedMessages.sum();
+    }
+
+    @Override
+    public long getMaskedMessages() {
+        return maskedMessages.sum();
+    }
+
+    @Override
+    public long getScanTimeNanos() {
+        return scanTimeNanos.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return patternTimeouts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public Map<String, Long> getPatternHits() {
+        return snapshot(patternHits);
+    }
+
+    @Override
+    public Map<String, Long> getPatternTimeouts() {
+        return snapshot(patternTimeouts);
+    }
+
+    /**
+     * @return number of values found by the pattern, {@code 0} for unknown patterns
+     */
+    public long getHitsOfPattern(final String pattern) {
+        final var counter = patternHits.get(pattern);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return number of regex timeouts of the pattern, {@code 0} for unknown patterns
+     */
+    public long getTimeoutsOfPattern(final String pattern) {
+        final var counter = patternTimeouts.get(pattern);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as
+     * {@code io.github.orczykowski.logstash.logback.obfuscator:type=SensitiveDataMetrics,name=<name>},
+     * replacing metrics registered under the same name before, e.g. by a previous logback configuration.
+     */
+    void registerInJmx(final String name) {
+        final var server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final var objectName = objectName(name);
+            try {
+                server.registerMBean(this, objectName);
+            } catch (final InstanceAlreadyExistsException ex) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+        } catch (final JMException ex) {
+            throw new IncorrectConfigurationException(INVALID_JMX_NAME_FMT.formatted(name, ex.getMessage()));
+        }
+        REGISTERED.put(name, this);
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server, unless other metrics replaced them under the same name.
+     */
+    void unregisterFromJmx(final String name) {
+        if (!REGISTERED.remove(name, this)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (final InstanceNotFoundException ex) {
+            // already unregistered by someone else
+        } catch (final JMException ex) {
+            throw new IllegalStateException(JMX_UNREGISTER_FAILED_FMT.formatted(name, ex.getMessage()), ex);
+        }
+    }
+
+    static ObjectName objectName(final String name) throws MalformedObjectNameException {
+        return new ObjectName(JMX_DOMAIN + ":type=SensitiveDataMetrics,name=" + ObjectName.quote(name));
+    }
+
+    private static Map<String, Long> snapshot(final Map<String, LongAdder> counters) {
+        final var result = new TreeMap<String, Long>();
+        counters.forEach((pattern, counter) -> result.put(pattern, counter.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link SensitiveDataMetrics}.
+ */
+public interface SensitiveDataMetricsMBean {
+
+    long getScannedMessages();
+
+    long getMaskedMessages();
+
+    long getScanTimeNanos();
+
+    long getTimeouts();
+
+    /**
+     * @return number of values found per pattern: the name of a predefined pattern or the regular expression
+     */
+    Map<String, Long> getPatternHits();
+
+    /**
+     * @return number of regex timeouts per regular expression
+     */
+    Map<String, Long> getPatternTimeouts();
+}
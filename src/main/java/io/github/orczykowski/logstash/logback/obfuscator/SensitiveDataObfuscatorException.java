@@ -4,4 +4,8 @@ public class SensitiveDataObfuscatorException extends RuntimeException {
     SensitiveDataObfuscatorException(String message) {
         super(message);
     }
+
+    SensitiveDataObfuscatorException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
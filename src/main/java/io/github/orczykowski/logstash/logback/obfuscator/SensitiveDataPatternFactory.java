@@ -1,17 +1,171 @@
 package io.github.orczykowski.logstash.logback.obfuscator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 class SensitiveDataPatternFactory {
     static final String PROPERTY_NAME_MARKER = "[PROPERTY_NAME]";
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    List<SensitiveValuePattern> createPerFieldName(final Collection<String> propertyNames,
+                                                   final Collection<String> regexpTemplates) {
+        return propertyNames.stream()
+                .flatMap(propertyName -> regexpTemplates.stream().map(template -> create(propertyName, template)))
+                .map(SensitiveValuePattern::new)
+                .toList();
+    }
 
     Pattern create(final String propertyName, final String regexpTemplate) {
         final var stringRegexp = regexpTemplate.replace(PROPERTY_NAME_MARKER, "(%s)".formatted(propertyName));
         return Pattern.compile(stringRegexp);
     }
 
+    List<SensitiveValuePattern> createPerPattern(final Collection<String> propertyNames,
+                                                 final Collection<String> regexpTemplates) {
+        final var alternation = asAlternation(propertyNames);
+        return regexpTemplates.stream()
+                .map(template -> new SensitiveValuePattern(create(alternation, template)))
+                .toList();
+    }
+
+    List<SensitiveValuePattern> createSingle(final Collection<String> propertyNames,
+                                             final Collection<String> regexpTemplates) {
+        final var alternation = asAlternation(propertyNames);
+        final var result = new ArrayList<SensitiveValuePattern>();
+        final var mergedRegexp = new StringBuilder();
+        final var valueGroups = new ArrayList<Integer>();
+        var groupOffset = 0;
+        for (final String template : regexpTemplates) {
+            final var pattern = create(alternation, template);
+            if (BACK_REFERENCE.matcher(template).find()) {
+                // group numbers would shift after merging, so patterns with back references are kept apart
+                result.add(new SensitiveValuePattern(pattern));
+                continue;
+            }
+            if (!mergedRegexp.isEmpty()) {
+                mergedRegexp.append('|');
+            }
+            mergedRegexp.append("(?:").append(pattern.pattern()).append(')');
+            valueGroups.add(groupOffset + 2);
+            groupOffset += pattern.matcher("").groupCount();
+        }
+        if (!valueGroups.isEmpty()) {
+            final var groups = valueGroups.stream().mapToInt(Integer::intValue).toArray();
+            result.add(0, new SensitiveValuePattern(Pattern.compile(mergedRegexp.toString()), groups));
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * @return whether the template has a capturing group before the {@code [PROPERTY_NAME]} placeholder, so a value
+     *         it finds may precede the field name
+     */
+    static boolean capturesBeforePropertyName(final String template) {
+        final var end = template.indexOf(PROPERTY_NAME_MARKER);
+        var inCharClass = false;
+        for (int i = 0; i < end; i++) {
+            final var c = template.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inCharClass) {
+                inCharClass = c != ']';
+            } else if (c == '[') {
+                inCharClass = true;
+            } else if (c == '(' && (i + 1 >= end || template.charAt(i + 1) != '?'
+                    || template.startsWith("?<", i + 1) && !template.startsWith("?<=", i + 1) && !template.startsWith("?<!", i + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String asAlternation(final Collection<String> propertyNames) {
+        return String.join("|", propertyNames);
+    }
+
+    enum CompileMode {
+        PER_FIELD_NAME,
+        PER_PATTERN,
+        SINGLE;
+
+        private static final List<String> names = Arrays.stream(values())
+                .map(Enum::name).toList();
+
+        static boolean isValidName(final String str) {
+            return !names.contains(str);
+        }
+
+        static List<String> getCompileModesNames() {
+            return names;
+        }
+    }
+
+    enum MatchingEngine {
+        /**
+         * Predefined patterns run on {@link LinearSensitiveValueFinder} whenever all field names are literals,
+         * everything else on {@link RegexSensitiveValueFinder}.
+         */
+        LINEAR,
+        /**
+         * Predefined patterns run on {@link TokenizerSensitiveValueFinder} whenever all field names are literals,
+         * everything else on {@link RegexSensitiveValueFinder}.
+         */
+        TOKENIZER,
+        /**
+         * All patterns run on {@link RegexSensitiveValueFinder}.
+         */
+        REGEX;
+
+        private static final List<String> names = Arrays.stream(values())
+                .map(Enum::name).toList();
+
+        static boolean isValidName(final String str) {
+            return !names.contains(str);
+        }
+
+        static List<String> getMatchingEnginesNames() {
+            return names;
+        }
+    }
+
+    enum TimeoutPolicy {
+        /**
+         * {@link RegexProcessingTimeoutException} is thrown out of the decorator.
+         */
+        THROW,
+        /**
+         * The whole value is masked.
+         */
+        MASK_VALUE,
+        /**
+         * The value is replaced with an empty string.
+         */
+        DROP_VALUE,
+        /**
+         * The value is cut before the first field name, so no sensitive value can remain, and a marker is appended.
+         */
+        TRUNCATE_VALUE,
+        /**
+         * Only values found by the pattern that timed out are not masked, other patterns still apply.
+         */
+        SKIP_PATTERN;
+
+        private static final List<String> names = Arrays.stream(values())
+                .map(Enum::name).toList();
+
+        static boolean isValidName(final String str) {
+            return !names.contains(str);
+        }
+
+        static List<String> getTimeoutPoliciesNames() {
+            return names;
+        }
+    }
+
     enum SensitiveValuePatterns {
         JSON("\"[PROPERTY_NAME]\":\"([^\"]*)\""),
         EQUAL_AND_SQUARE_BRACKETS("[PROPERTY_NAME]=\\[([^\\]^\\[]+)\\]"),
@@ -34,6 +188,14 @@ class SensitiveDataPatternFactory {
             return patternTemplate;
         }
 
+        static boolean isPatternTemplate(final String template) {
+            return fromPatternTemplate(template).isPresent();
+        }
+
+        static Optional<SensitiveValuePatterns> fromPatternTemplate(final String template) {
+            return Arrays.stream(values()).filter(pattern -> pattern.patternTemplate.equals(template)).findFirst();
+        }
+
         static List<String> getSensitivePatternsNames() {
             return names;
         }
@@ -0,0 +1,22 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+/**
+ * Matching engine locating sensitive values in a log message.
+ */
+interface SensitiveValueFinder {
+
+    /**
+     * Adds the position of every sensitive value found in the input to the spans. Spans may overlap each other
+     * and the spans added by other finders.
+     */
+    default void find(final String input, final SensitiveValueSpans spans) {
+        find(input, 0, input.length(), spans);
+    }
+
+    /**
+     * Adds the values of the matches anchored in the given range of the input, where the anchor is a position
+     * specific to the engine, e.g. the start of a regex match. Values may extend beyond the range, so calls for
+     * consecutive ranges covering the input find the values a single call for the whole input finds.
+     */
+    void find(String input, int from, int to, SensitiveValueSpans spans);
+}
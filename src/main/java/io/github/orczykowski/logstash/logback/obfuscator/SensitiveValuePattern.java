@@ -0,0 +1,50 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+final class SensitiveValuePattern {
+    static final int NO_GROUP = -1;
+    private static final int[] DEFAULT_VALUE_GROUPS = {2};
+
+    private final Pattern pattern;
+    private final int[] valueGroups;
+
+    SensitiveValuePattern(final Pattern pattern) {
+        this(pattern, DEFAULT_VALUE_GROUPS);
+    }
+
+    SensitiveValuePattern(final Pattern pattern, final int[] valueGroups) {
+        this.pattern = pattern;
+        this.valueGroups = valueGroups;
+    }
+
+    Pattern pattern() {
+        return pattern;
+    }
+
+    int[] valueGroups() {
+        return valueGroups;
+    }
+
+    /**
+     * @return whether the pattern is merged from several templates, so a match of one template may start inside
+     *         the value matched by another one
+     */
+    boolean isMerged() {
+        return valueGroups.length > 1;
+    }
+
+    /**
+     * Resolves the group holding the sensitive value of the given match. Patterns merged from several
+     * templates contain one value group per template and only the one of the matched alternative participates.
+     */
+    int valueGroup(final MatchResult match) {
+        for (final int group : valueGroups) {
+            if (match.start(group) != NO_GROUP) {
+                return group;
+            }
+        }
+        return NO_GROUP;
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Positions of sensitive values found in a single log message. Instances are reused by one thread at a time,
+ * so the arrays and the output buffer are allocated once and only grow when a message needs more room.
+ */
+final class SensitiveValueSpans {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_RETAINED_OUTPUT_CAPACITY = 1 << 16;
+
+    private static final int NOT_TRUNCATED = -1;
+
+    private long[] spans = new long[INITIAL_CAPACITY];
+    private int size;
+    private boolean timedOut;
+    private int truncatedAt = NOT_TRUNCATED;
+    private String truncationMarker;
+    private StringBuilder output = new StringBuilder();
+    private ByteArrayOutputStream utf8Output = new ByteArrayOutputStream();
+
+    @FunctionalInterface
+    interface Replacement {
+        void append(StringBuilder output, String input, int start, int end);
+    }
+
+    @FunctionalInterface
+    interface Utf8Replacement {
+        void append(ByteArrayOutputStream output, byte[] input, int start, int end);
+    }
+
+    void clear() {
+        size = 0;
+        timedOut = false;
+        truncatedAt = NOT_TRUNCATED;
+    }
+
+    /**
+     * Drops the spans added after the given number of spans, e.g. all spans of a pattern that timed out.
+     */
+    void removeFrom(final int index) {
+        size = Math.min(size, index);
+    }
+
+    void markTimedOut() {
+        timedOut = true;
+    }
+
+    /**
+     * @return whether a pattern timed out, so the result is degraded and must not be cached
+     */
+    boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Makes {@link #applyTo(String, Replacement)} write the input only up to the position followed by the marker.
+     * The position moves back to the start of a span crossing it, so no part of a sensitive value is written.
+     * Requires resolved overlaps.
+     */
+    void truncate(final int position, final String marker) {
+        var end = position;
+        var kept = 0;
+        while (kept < size && start(kept) < end) {
+            if (end(kept) > end) {
+                end = start(kept);
+                break;
+            }
+            kept++;
+        }
+        size = kept;
+        truncatedAt = end;
+        truncationMarker = marker;
+    }
+
+    void add(final int start, final int end) {
+        if (size == spans.length) {
+            spans = Arrays.copyOf(spans, size * 2);
+        }
+        spans[size++] = span(start, end);
+    }
+
+    private static long span(final int start, final int end) {
+        // start in the high bits and inverted end in the low bits: sorting puts the longest span first on equal starts
+        return ((long) start << 32) | (~end & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds all spans of the other instance, e.g. found in another part of the same input, including the timeout mark.
+     */
+    void addAll(final SensitiveValueSpans other) {
+        if (size + other.size > spans.length) {
+            spans = Arrays.copyOf(spans, Math.max(size + other.size, size * 2));
+        }
+        System.arraycopy(other.spans, 0, spans, size, other.size);
+        size += other.size;
+        timedOut |= other.timedOut;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int start(final int index) {
+        return (int) (spans[index] >>> 32);
+    }
+
+    int end(final int index) {
+        return ~(int) spans[index];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sorts spans by position, drops duplicates and merges overlapping spans into their union, so each character
+     * of the input is replaced at most once and no part of a value overlapping another one is left in clear text.
+     */
+    void resolveOverlaps() {
+        if (size < 2) {
+            return;
+        }
+        Arrays.sort(spans, 0, size);
+        var kept = 1;
+        for (int i = 1; i < size; i++) {
+            final var previousEnd = end(kept - 1);
+            if (start(i) < previousEnd) {
+                if (end(i) > previousEnd) {
+                    spans[kept - 1] = span(start(kept - 1), end(i));
+                }
+            } else if (spans[i] != spans[kept - 1]) {
+                spans[kept++] = spans[i];
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Writes the input with every span replaced into the reused buffer.
+     * @return the input itself when there is nothing to replace, a new string otherwise
+     */
+    String applyTo(final String input, final Replacement replacement) {
+        if (size == 0 && truncatedAt == NOT_TRUNCATED) {
+            return input;
+        }
+        final var result = output;
+        result.setLength(0);
+        var position = 0;
+        for (int i = 0; i < size; i++) {
+            result.append(input, position, start(i));
+            replacement.append(result, input, start(i), end(i));
+            position = end(i);
+        }
+        if (truncatedAt == NOT_TRUNCATED) {
+            result.append(input, position, input.length());
+        } else {
+            result.append(input, position, truncatedAt).append(truncationMarker);
+        }
+        final var masked = result.toString();
+        if (result.capacity() > MAX_RETAINED_OUTPUT_CAPACITY) {
+            output = new StringBuilder();
+        }
+        return masked;
+    }
+
+    /**
+     * Writes the UTF-8 encoded input with every span, given as byte offsets, replaced into the reused buffer.
+     * @return the input itself when there is nothing to replace, a new array otherwise
+     */
+    byte[] applyTo(final byte[] input, final Utf8Replacement replacement) {
+        if (size == 0) {
+            return input;
+        }
+        final var result = utf8Output;
+        result.reset();
+        var position = 0;
+        for (int i = 0; i < size; i++) {
+            result.write(input, position, start(i) - position);
+            replacement.append(result, input, start(i), end(i));
+            position = end(i);
+        }
+        result.write(input, position, input.length - position);
+        final var masked = result.toByteArray();
+        if (masked.length > MAX_RETAINED_OUTPUT_CAPACITY) {
+            utf8Output = new ByteArrayOutputStream();
+        }
+        return masked;
+    }
+}
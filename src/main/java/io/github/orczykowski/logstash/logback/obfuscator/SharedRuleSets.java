@@ -0,0 +1,61 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.core.Context;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Decorators whose rules are shared by name with other decorators, e.g. configured on several appenders.
+ * Each Logback context has its own registry, so contexts declaring the same name, e.g. of web applications in one
+ * container, do not share rules. Decorators without a context share one registry.
+ * A decorator is registered when it is started and replaces the one registered before under the same name.
+ */
+final class SharedRuleSets {
+    static final String CONTEXT_KEY = "SENSITIVE_DATA_SHARED_RULE_SETS";
+    private static final SharedRuleSets WITHOUT_CONTEXT = new SharedRuleSets();
+
+    private final ConcurrentHashMap<String, AbstractSensitiveDataDecorator> owners = new ConcurrentHashMap<>();
+
+    private SharedRuleSets() {
+    }
+
+    /**
+     * @return the registry of the context, created on first use
+     */
+    static SharedRuleSets of(final Context context) {
+        if (isNull(context)) {
+            return WITHOUT_CONTEXT;
+        }
+        var result = (SharedRuleSets) context.getObject(CONTEXT_KEY);
+        if (isNull(result)) {
+            synchronized (SharedRuleSets.class) {
+                result = (SharedRuleSets) context.getObject(CONTEXT_KEY);
+                if (isNull(result)) {
+                    result = new SharedRuleSets();
+                    context.putObject(CONTEXT_KEY, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the decorator registered under the name before, {@code null} when there was none
+     */
+    AbstractSensitiveDataDecorator register(final String name, final AbstractSensitiveDataDecorator owner) {
+        return owners.put(name, owner);
+    }
+
+    void unregister(final String name, final AbstractSensitiveDataDecorator owner) {
+        owners.remove(name, owner);
+    }
+
+    /**
+     * @return the decorator owning the rules, {@code null} when none is registered under the name
+     */
+    AbstractSensitiveDataDecorator owner(final String name) {
+        return owners.get(name);
+    }
+}
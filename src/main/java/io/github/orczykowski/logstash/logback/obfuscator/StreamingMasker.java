@@ -0,0 +1,236 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Masks text read from a stream and writes it out window by window, so the memory used does not depend on the length
+ * of the text. A window is scanned for matches starting in its first part, the lookahead after it is left for matches
+ * crossing its end. The lookahead is sized from the longest field name and pattern plus the maximum value length,
+ * values longer than that are not found when they cross the end of a window.
+ * When a regular expression times out, the timeout policy of the value masker applies to the part of the window not
+ * written out yet: {@code MASK_VALUE} masks it, {@code DROP_VALUE} ends the output before it and
+ * {@code TRUNCATE_VALUE} ends the output at the first field name in it with the truncation marker.
+ * The masker uses the configuration of the value masker at the time it was created and may be used by many threads.
+ * Each masked text counts as one scanned message in the metrics of the value masker.
+ */
+public final class StreamingMasker {
+    static final int DEFAULT_MAX_VALUE_LENGTH = 65_536;
+    static final String INVALID_MAX_VALUE_LENGTH_FMT = "Maximum value length must be a positive value, got: %d";
+    static final String UNSUPPORTED_VALUE_MASKER_MSG = "Streaming requires a value masker replacing values on its own, e.g. SensitiveDataAsMaskDecorator";
+    private static final int MIN_WINDOW_LENGTH = 8192;
+
+    private final CompiledRuleSet ruleSet;
+    private final SensitiveValueSpans.Replacement replacement;
+    private final SensitiveDataPatternFactory.TimeoutPolicy timeoutPolicy;
+    private final SensitiveDataMetrics metrics;
+    private final int lookahead;
+    private final int contextLength;
+    private final int windowLength;
+
+    public StreamingMasker(final AbstractSensitiveDataDecorator valueMasker) {
+        this(valueMasker, DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * @param maxValueLength length of the longest sensitive value found when it crosses the end of a window
+     */
+    public StreamingMasker(final AbstractSensitiveDataDecorator valueMasker, final int maxValueLength) {
+        if (maxValueLength < 1) {
+            throw new IncorrectConfigurationException(INVALID_MAX_VALUE_LENGTH_FMT.formatted(maxValueLength));
+        }
+        this.replacement = valueMasker.replacement();
+        if (isNull(replacement)) {
+            throw new IncorrectConfigurationException(UNSUPPORTED_VALUE_MASKER_MSG);
+        }
+        this.ruleSet = valueMasker.getCompiledRuleSet();
+        this.timeoutPolicy = valueMasker.timeoutPolicy();
+        this.metrics = valueMasker.getMetrics().orElse(null);
+        this.lookahead = ruleSet.longestKeyLength() + maxValueLength;
+        // linear engine reads the longest field name and the quote before the first position it reports
+        this.contextLength = ruleSet.longestKeyLength() + 1;
+        this.windowLength = Math.max(MIN_WINDOW_LENGTH, lookahead);
+    }
+
+    public void mask(final Reader input, final Writer output) throws IOException {
+        maskWindows(input, output);
+    }
+
+    public void mask(final CharSequence input, final Appendable output) throws IOException {
+        maskWindows(CharBuffer.wrap(input), output);
+    }
+
+    /**
+     * Masks a value as a whole: it is copied only from the first window with a sensitive value on, and a timeout is
+     * handled by the timeout policy for the whole value, the same way as in a value masked at once.
+     * @return the input itself when there is nothing to mask
+     */
+    CharSequence mask(final CharSequence input) {
+        final var output = new ValueCopy(input);
+        try {
+            maskWindows(CharBuffer.wrap(input), output);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (output.timedOut) {
+            final var value = input.toString();
+            final var spans = new SensitiveValueSpans();
+            AbstractSensitiveDataDecorator.applyTimeoutPolicy(timeoutPolicy, ruleSet, value, spans);
+            return spans.applyTo(value, replacement);
+        }
+        return isNull(output.copy) ? input : output.copy.toString();
+    }
+
+    private void maskWindows(final Readable input, final Appendable output) throws IOException {
+        final var scanStart = isNull(metrics) ? 0L : System.nanoTime();
+        final var changed = scanWindows(input, output);
+        if (!isNull(metrics)) {
+            metrics.recordScan(System.nanoTime() - scanStart, changed);
+        }
+    }
+
+    /**
+     * @return whether any value was masked
+     */
+    private boolean scanWindows(final Readable input, final Appendable output) throws IOException {
+        // a whole value is handed back to mask(CharSequence) on a timeout
+        final var valueCopy = output instanceof ValueCopy copy ? copy : null;
+        final var window = new StringBuilder(contextLength + windowLength + lookahead);
+        final var buffer = CharBuffer.allocate(windowLength);
+        final var replaced = new StringBuilder();
+        final var spans = new SensitiveValueSpans();
+        var context = 0;
+        var endOfInput = false;
+        var changed = false;
+        while (true) {
+            while (!endOfInput && window.length() < context + windowLength + lookahead) {
+                buffer.clear().limit(Math.min(buffer.capacity(), context + windowLength + lookahead - window.length()));
+                if (input.read(buffer) < 0) {
+                    endOfInput = true;
+                } else {
+                    window.append(buffer.flip());
+                }
+            }
+            if (window.length() == context) {
+                flush(output);
+                return changed;
+            }
+            final var text = window.toString();
+            final var scanEnd = endOfInput ? text.length() : text.length() - lookahead;
+            spans.clear();
+            ruleSet.findSensitiveValues(text, context, scanEnd, spans);
+            spans.resolveOverlaps();
+            var writeEnd = scanEnd;
+            for (int i = 0; i < spans.size(); i++) {
+                writeEnd = Math.max(writeEnd, spans.end(i));
+            }
+            if (spans.isTimedOut() && timeoutPolicy != SensitiveDataPatternFactory.TimeoutPolicy.SKIP_PATTERN) {
+                if (!isNull(valueCopy)) {
+                    valueCopy.timedOut = true;
+                    return true;
+                }
+                if (timeoutPolicy != SensitiveDataPatternFactory.TimeoutPolicy.MASK_VALUE) {
+                    endOutput(output, text, context, writeEnd);
+                    return true;
+                }
+                spans.removeFrom(0);
+                spans.add(context, writeEnd);
+            }
+            final var target = spans.isEmpty() || isNull(valueCopy) ? output : valueCopy.startCopy();
+            changed |= !spans.isEmpty();
+            var position = context;
+            for (int i = 0; i < spans.size(); i++) {
+                write(target, text, position, spans.start(i));
+                if (target instanceof StringBuilder builder) {
+                    replacement.append(builder, text, spans.start(i), spans.end(i));
+                } else {
+                    replaced.setLength(0);
+                    replacement.append(replaced, text, spans.start(i), spans.end(i));
+                    target.append(replaced);
+                }
+                position = spans.end(i);
+            }
+            write(target, text, position, writeEnd);
+            final var keep = Math.min(writeEnd, contextLength);
+            window.delete(0, writeEnd - keep);
+            context = keep;
+        }
+    }
+
+    private void endOutput(final Appendable output, final String text, final int context, final int writeEnd) throws IOException {
+        if (timeoutPolicy == SensitiveDataPatternFactory.TimeoutPolicy.TRUNCATE_VALUE) {
+            final var end = Math.min(writeEnd, Math.max(context, ruleSet.firstFieldNameStart(text)));
+            write(output, text, context, end);
+            output.append(AbstractSensitiveDataDecorator.TRUNCATION_MARKER);
+        }
+        flush(output);
+    }
+
+    private static void write(final Appendable output, final String text, final int start, final int end) throws IOException {
+        if (output instanceof Writer writer) {
+            // Writer.append(CharSequence, int, int) copies the range into a new string
+            writer.write(text, start, end - start);
+        } else {
+            output.append(text, start, end);
+        }
+    }
+
+    private static void flush(final Appendable output) throws IOException {
+        if (output instanceof Flushable flushable) {
+            flushable.flush();
+        }
+    }
+
+    /**
+     * Output of a whole value, which counts the characters passed on unchanged and copies them from the value only
+     * once a window has something to mask.
+     */
+    private static final class ValueCopy implements Appendable {
+        private final CharSequence value;
+        private StringBuilder copy;
+        private int unchanged;
+        private boolean timedOut;
+
+        private ValueCopy(final CharSequence value) {
+            this.value = value;
+        }
+
+        private StringBuilder startCopy() {
+            if (isNull(copy)) {
+                copy = new StringBuilder(value.length()).append(value, 0, unchanged);
+            }
+            return copy;
+        }
+
+        @Override
+        public Appendable append(final CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(final CharSequence csq, final int start, final int end) {
+            if (isNull(copy)) {
+                unchanged += end - start;
+            } else {
+                copy.append(csq, start, end);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(final char c) {
+            if (isNull(copy)) {
+                unchanged++;
+            } else {
+                copy.append(c);
+            }
+            return this;
+        }
+    }
+}
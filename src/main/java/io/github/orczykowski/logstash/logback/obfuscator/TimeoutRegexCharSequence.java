@@ -1,29 +1,53 @@
 package io.github.orczykowski.logstash.logback.obfuscator;
 
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 class TimeoutRegexCharSequence implements CharSequence {
 
     static final int NO_TIMEOUT = -1;
+    /**
+     * Reading the clock costs more than a single step of the regex engine, so it is read only once per this many
+     * {@link #charAt(int)} calls. The first call always reads it.
+     */
+    static final int CLOCK_CHECK_INTERVAL = 1024;
 
     private final CharSequence inner;
     private final int timeoutMillis;
-    private final long timeoutTime;
+    private final long deadlineNanos;
     private final Pattern pattern;
+    private final boolean preallocatedException;
+    private int readsUntilClockCheck;
 
     TimeoutRegexCharSequence(final CharSequence inner, final int timeoutMillis, final Pattern pattern) {
-        this.inner = inner;
-        this.timeoutMillis = timeoutMillis;
-        this.pattern = pattern;
-        this.timeoutTime = System.currentTimeMillis() + timeoutMillis;
+        this(inner, timeoutMillis, pattern, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), false);
     }
 
-    private TimeoutRegexCharSequence(final CharSequence inner, final int timeoutMillis, final Pattern pattern, final long timeoutTime) {
+    private TimeoutRegexCharSequence(final CharSequence inner, final int timeoutMillis, final Pattern pattern,
+                                     final long deadlineNanos, final boolean preallocatedException) {
         this.inner = inner;
         this.timeoutMillis = timeoutMillis;
         this.pattern = pattern;
-        this.timeoutTime = timeoutTime;
+        this.deadlineNanos = deadlineNanos;
+        this.preallocatedException = preallocatedException;
+    }
+
+    static Matcher matcher(final Pattern pattern, final CharSequence input, final int timeoutMillis) {
+        return matcher(pattern, input, timeoutMillis, false);
+    }
+
+    /**
+     * @param preallocatedException whether to throw {@link RegexProcessingTimeoutException#PREALLOCATED} on timeout,
+     *                              for callers handling the timeout themselves
+     */
+    static Matcher matcher(final Pattern pattern, final CharSequence input, final int timeoutMillis,
+                           final boolean preallocatedException) {
+        if (timeoutMillis == NO_TIMEOUT) {
+            return pattern.matcher(input);
+        }
+        final var deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        return new TimeoutRegexCharSequence(input, timeoutMillis, pattern, deadlineNanos, preallocatedException).matcher();
     }
 
     Matcher matcher() {
@@ -32,12 +56,21 @@ class TimeoutRegexCharSequence implements CharSequence {
 
     @Override
     public char charAt(final int index) {
-        if (System.currentTimeMillis() > timeoutTime) {
-            throw new RegexProcessingTimeoutException(timeoutMillis, pattern.pattern());
+        if (--readsUntilClockCheck < 0) {
+            checkDeadline();
+            readsUntilClockCheck = CLOCK_CHECK_INTERVAL - 1;
         }
         return inner.charAt(index);
     }
 
+    private void checkDeadline() {
+        if (System.nanoTime() - deadlineNanos > 0) {
+            throw preallocatedException
+                    ? RegexProcessingTimeoutException.PREALLOCATED
+                    : new RegexProcessingTimeoutException(timeoutMillis, pattern.pattern());
+        }
+    }
+
     @Override
     public int length() {
         return inner.length();
@@ -45,7 +78,8 @@ class TimeoutRegexCharSequence implements CharSequence {
 
     @Override
     public CharSequence subSequence(final int start, final int end) {
-        return new TimeoutRegexCharSequence(inner.subSequence(start, end), timeoutMillis, pattern, timeoutTime);
+        return new TimeoutRegexCharSequence(inner.subSequence(start, end), timeoutMillis, pattern, deadlineNanos,
+                preallocatedException);
     }
 
     @Override
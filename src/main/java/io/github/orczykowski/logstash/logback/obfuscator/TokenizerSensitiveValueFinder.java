@@ -0,0 +1,85 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Set;
+
+/**
+ * Engine for the predefined patterns walking the input once and stopping only at the characters that can follow
+ * a field name in them: {@code =} for the key-value patterns and {@code "} followed by {@code :"} for JSON.
+ * The text before such a delimiter is looked up in a {@link FieldNameSet} and the value is read by the
+ * {@link DelimitedValueScanner}. Finds the values the regexes of the predefined patterns find in
+ * {@code PER_FIELD_NAME} compile mode for literal field names: a field name inside the previous match of the same
+ * field name and pattern is skipped, as its regex resumes searching after that match.
+ */
+final class TokenizerSensitiveValueFinder implements SensitiveValueFinder {
+    private final FieldNameSet fieldNames;
+    private final DelimitedValueScanner valueScanner;
+    private final boolean json;
+    private final boolean equalSign;
+
+    TokenizerSensitiveValueFinder(final FieldNameSet fieldNames,
+                                  final Set<SensitiveDataPatternFactory.SensitiveValuePatterns> patterns,
+                                  final SensitiveDataMetrics metrics) {
+        this.fieldNames = fieldNames;
+        this.valueScanner = new DelimitedValueScanner(patterns, metrics);
+        this.json = valueScanner.json();
+        this.equalSign = valueScanner.anyEqualSign();
+    }
+
+    /**
+     * Delimiters following a field name in the range are anchors. Matches before the range are not known, as they
+     * are not to the regex engine scanning the same range.
+     */
+    @Override
+    public void find(final String input, final int from, final int to, final SensitiveValueSpans spans) {
+        FieldNameMatchEnds matchEnds = null;
+        for (int i = from; i < to; i++) {
+            final var c = input.charAt(i);
+            final boolean quoted;
+            if (c == '=') {
+                if (!equalSign || !fieldNames.containsEndingAt(input, i, false)) {
+                    continue;
+                }
+                quoted = false;
+            } else if (c == '"') {
+                if (!json || !input.startsWith(DelimitedValueScanner.JSON_SEPARATOR, i)
+                        || !fieldNames.containsEndingAt(input, i, true)) {
+                    continue;
+                }
+                quoted = true;
+            } else {
+                continue;
+            }
+            final var pattern = valueScanner.patternAfter(input, i);
+            if (pattern == null) {
+                continue;
+            }
+            final var valueEnd = valueScanner.valueEnd(input, i, pattern);
+            if (valueEnd == DelimitedValueScanner.NOT_FOUND) {
+                continue;
+            }
+            if (matchEnds == null) {
+                matchEnds = FieldNameMatchEnds.forInput(fieldNames.capacity());
+            }
+            if (recordMatches(input, i, valueEnd, pattern, quoted, matchEnds)) {
+                valueScanner.addValue(i, valueEnd, pattern, spans);
+            }
+        }
+    }
+
+    /**
+     * @return whether the match is recorded for at least one of the field names ending at the position
+     */
+    private boolean recordMatches(final String input, final int fieldNameEnd, final int valueEnd,
+                                  final SensitiveDataPatternFactory.SensitiveValuePatterns pattern, final boolean quoted,
+                                  final FieldNameMatchEnds matchEnds) {
+        var recorded = false;
+        var fieldName = fieldNames.fieldNameEndingAt(input, fieldNameEnd, quoted, 1);
+        while (fieldName != FieldNameSet.NOT_FOUND) {
+            final var length = fieldNames.length(fieldName);
+            final var start = fieldNameEnd - length - (quoted ? 1 : 0);
+            recorded |= matchEnds.record(fieldName, pattern, start, valueEnd + 1);
+            fieldName = fieldNames.fieldNameEndingAt(input, fieldNameEnd, quoted, length + 1);
+        }
+        return recorded;
+    }
+}
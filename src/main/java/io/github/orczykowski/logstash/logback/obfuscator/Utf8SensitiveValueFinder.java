@@ -0,0 +1,85 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Byte level counterpart of {@link TokenizerSensitiveValueFinder} working directly on UTF-8 encoded text, with the
+ * same {@link FieldNameSet} lookup and {@link DelimitedValueScanner}, so it finds the values the String engines find
+ * in the decoded text. Found spans are byte offsets.
+ */
+final class Utf8SensitiveValueFinder {
+    private final FieldNameSet fieldNames;
+    private final DelimitedValueScanner valueScanner;
+    private final boolean json;
+    private final boolean equalSign;
+
+    /**
+     * @param metrics metrics counting values found per pattern, {@code null} when metrics are disabled
+     */
+    Utf8SensitiveValueFinder(final Collection<String> fieldNames,
+                             final Set<SensitiveDataPatternFactory.SensitiveValuePatterns> patterns,
+                             final SensitiveDataMetrics metrics) {
+        this.fieldNames = FieldNameSet.ofUtf8(fieldNames);
+        this.valueScanner = new DelimitedValueScanner(patterns, metrics);
+        this.json = valueScanner.json();
+        this.equalSign = valueScanner.anyEqualSign();
+    }
+
+    /**
+     * Field names inside the previous match of the same field name and pattern are skipped, as by
+     * {@link TokenizerSensitiveValueFinder}.
+     */
+    void find(final byte[] input, final SensitiveValueSpans spans) {
+        FieldNameMatchEnds matchEnds = null;
+        for (int i = 0; i < input.length; i++) {
+            final var b = input[i];
+            final boolean quoted;
+            if (b == '=') {
+                if (!equalSign || !fieldNames.containsEndingAt(input, i, false)) {
+                    continue;
+                }
+                quoted = false;
+            } else if (b == '"') {
+                if (!json || !DelimitedValueScanner.isJsonSeparator(input, i)
+                        || !fieldNames.containsEndingAt(input, i, true)) {
+                    continue;
+                }
+                quoted = true;
+            } else {
+                continue;
+            }
+            final var pattern = valueScanner.patternAfter(input, i);
+            if (pattern == null) {
+                continue;
+            }
+            final var valueEnd = valueScanner.valueEnd(input, i, pattern);
+            if (valueEnd == DelimitedValueScanner.NOT_FOUND) {
+                continue;
+            }
+            if (matchEnds == null) {
+                matchEnds = FieldNameMatchEnds.forInput(fieldNames.capacity());
+            }
+            if (recordMatches(input, i, valueEnd, pattern, quoted, matchEnds)) {
+                valueScanner.addValue(i, valueEnd, pattern, spans);
+            }
+        }
+    }
+
+    /**
+     * @return whether the match is recorded for at least one of the field names ending at the position
+     */
+    private boolean recordMatches(final byte[] input, final int fieldNameEnd, final int valueEnd,
+                                  final SensitiveDataPatternFactory.SensitiveValuePatterns pattern, final boolean quoted,
+                                  final FieldNameMatchEnds matchEnds) {
+        var recorded = false;
+        var fieldName = fieldNames.fieldNameEndingAt(input, fieldNameEnd, quoted, 1);
+        while (fieldName != FieldNameSet.NOT_FOUND) {
+            final var length = fieldNames.length(fieldName);
+            final var start = fieldNameEnd - length - (quoted ? 1 : 0);
+            recorded |= matchEnds.record(fieldName, pattern, start, valueEnd + 1);
+            fieldName = fieldNames.fieldNameEndingAt(input, fieldNameEnd, quoted, length + 1);
+        }
+        return recorded;
+    }
+}
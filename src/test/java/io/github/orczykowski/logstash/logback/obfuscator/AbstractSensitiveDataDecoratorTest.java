@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AbstractSensitiveDataDecoratorTest {
 
@@ -42,12 +43,42 @@ class AbstractSensitiveDataDecoratorTest {
     }
 
     @Test
-    void shouldThrowExceptionWhenTryAddFieldNamesBeforePatterns() {
+    void shouldCompileSamePatternsWhenFieldNamesAreAddedBeforePatterns() {
         //given:
-        final var expectedMessage = AbstractSensitiveDataDecorator.MISSING_PROPERTY_PATERNS_MSG;
+        final var patternsFirst = new TestImplementationSensitiveDataTextDecoratorTest();
+        patternsFirst.addCustomPattern(SensitiveDataPatternFactory.PROPERTY_NAME_MARKER + "=(\\w+)");
+        patternsFirst.addFieldName("password");
+        //when:
+        subject.addFieldName("password");
+        subject.addCustomPattern(SensitiveDataPatternFactory.PROPERTY_NAME_MARKER + "=(\\w+)");
+        //then:
+        assertEquals(patternsFirst.getSensitiveValuePatterns().stream().map(it -> it.pattern().pattern()).toList(),
+                subject.getSensitiveValuePatterns().stream().map(it -> it.pattern().pattern()).toList());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"pass(word", "[secret"})
+    void shouldThrowExceptionWhenTryAddIncorrectFieldName(final String fieldName) {
         //expect:
-        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addFieldName("something"));
-        assertEquals(expectedMessage, ex.getMessage());
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addFieldName(fieldName));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_FIELD_NAME_FMT.formatted(fieldName), ex.getMessage());
+    }
+
+    @Test
+    void shouldCompileRuleSetOnStart() {
+        //given:
+        subject.addFieldName("password");
+        subject.addCustomPattern(SensitiveDataPatternFactory.PROPERTY_NAME_MARKER + "=(\\w+)");
+        //when:
+        subject.start();
+        //then:
+        assertTrue(subject.isStarted());
+        assertEquals(1, subject.getSensitiveValuePatterns().size());
+        //when:
+        subject.stop();
+        //then:
+        Assertions.assertFalse(subject.isStarted());
     }
 
     @ParameterizedTest
@@ -93,6 +124,234 @@ class AbstractSensitiveDataDecoratorTest {
         assertEquals(-1, subject.getRegexTimeoutMillis());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"SOMETHING", "per_pattern"})
+    @NullAndEmptySource
+    void shouldThrowExceptionWhenTrySetUnknownCompileMode(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addPatternCompileMode(str));
+        assertEquals(AbstractSensitiveDataDecorator.UNKNOWN_COMPILE_MODE_FMT.formatted(
+                SensitiveDataPatternFactory.CompileMode.getCompileModesNames()), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @EnumSource
+    void shouldCompileNumberOfPatternsAccordingToCompileMode(SensitiveDataPatternFactory.CompileMode compileMode) {
+        //given:
+        subject.addPatternCompileMode(compileMode.name());
+        subject.addMatchingEngine(SensitiveDataPatternFactory.MatchingEngine.REGEX.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_BRACKETS.name());
+        subject.addFieldName("firstName");
+        subject.addFieldName("email");
+        subject.addFieldName("phone");
+
+        //when:
+        var patterns = subject.getSensitiveValuePatterns();
+
+        //then:
+        var expectedNumberOfPatterns = switch (compileMode) {
+            case PER_FIELD_NAME -> 6;
+            case PER_PATTERN -> 2;
+            case SINGLE -> 1;
+        };
+        assertEquals(expectedNumberOfPatterns, patterns.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SOMETHING", "linear"})
+    @NullAndEmptySource
+    void shouldThrowExceptionWhenTrySetUnknownMatchingEngine(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addMatchingEngine(str));
+        assertEquals(AbstractSensitiveDataDecorator.UNKNOWN_MATCHING_ENGINE_FMT.formatted(
+                SensitiveDataPatternFactory.MatchingEngine.getMatchingEnginesNames()), ex.getMessage());
+    }
+
+    @Test
+    void shouldNotCompileRegexForPredefinedPatternsWithLinearMatchingEngine() {
+        //given:
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addCustomPattern("[PROPERTY_NAME]->'([^']+)'");
+        subject.addFieldName("firstName");
+
+        //when:
+        var patterns = subject.getSensitiveValuePatterns();
+
+        //then:
+        assertEquals(1, patterns.size());
+        assertEquals("(firstName)->'([^']+)'", patterns.get(0).pattern().pattern());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"yes", "1", "enabled"})
+    void shouldThrowExceptionWhenTrySetFieldNameMaskingToNonBooleanValue(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addFieldNameMasking(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_FIELD_NAME_MASKING_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"-1", "ten", "2147483648"})
+    void shouldThrowExceptionWhenTrySetIncorrectResultCacheSize(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addResultCacheSize(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_RESULT_CACHE_SIZE_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"0", "-1", "1MB"})
+    void shouldThrowExceptionWhenTrySetIncorrectResultCacheByteLimit(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addResultCacheMaxBytes(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_RESULT_CACHE_MAX_BYTES_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"-1", "many", "1073741825"})
+    void shouldThrowExceptionWhenTrySetIncorrectCleanValueCacheSize(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addCleanValueCacheSize(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_CLEAN_VALUE_CACHE_SIZE_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"on", "1"})
+    void shouldThrowExceptionWhenTrySetMetricsEnabledToNonBooleanValue(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addMetricsEnabled(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_METRICS_ENABLED_FMT.formatted(str), ex.getMessage());
+    }
+
+    @Test
+    void shouldNotCollectMetricsByDefault() {
+        //expect:
+        assertTrue(subject.getMetrics().isEmpty());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"throw", "IGNORE"})
+    void shouldThrowExceptionWhenTrySetUnknownTimeoutPolicy(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRegexTimeoutPolicy(str));
+        assertEquals(AbstractSensitiveDataDecorator.UNKNOWN_TIMEOUT_POLICY_FMT.formatted(
+                SensitiveDataPatternFactory.TimeoutPolicy.getTimeoutPoliciesNames()), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"-1", "three"})
+    void shouldThrowExceptionWhenTrySetIncorrectCircuitBreakerThreshold(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRegexCircuitBreakerThreshold(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_CIRCUIT_BREAKER_THRESHOLD_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"0", "-5", "1m"})
+    void shouldThrowExceptionWhenTrySetIncorrectCircuitBreakerCoolDown(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRegexCircuitBreakerCoolDownMillis(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_CIRCUIT_BREAKER_COOL_DOWN_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"-1", "10ms"})
+    void shouldThrowExceptionWhenTrySetIncorrectScanBudgetSpec(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRegexScanBudgetSpec(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_SCAN_BUDGET_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, -100})
+    void shouldThrowExceptionWhenTrySetIncorrectScanBudget(int budget) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRegexScanBudgetMillis(budget));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_SCAN_BUDGET_FMT.formatted(budget), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"-1", "64k"})
+    void shouldThrowExceptionWhenTrySetIncorrectParallelScanThreshold(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addParallelScanThreshold(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_PARALLEL_SCAN_THRESHOLD_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"-1", "1MB"})
+    void shouldThrowExceptionWhenTrySetIncorrectStreamingThreshold(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addStreamingThreshold(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_STREAMING_THRESHOLD_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"0", "-1", "64k"})
+    void shouldThrowExceptionWhenTrySetIncorrectStreamingMaxValueLength(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addStreamingMaxValueLength(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_STREAMING_MAX_VALUE_LENGTH_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"a", "0", "-1"})
+    void shouldThrowExceptionWhenTrySetIncorrectRulesFileCheckInterval(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRulesFileCheckIntervalMillis(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_RULES_FILE_CHECK_INTERVAL_FMT.formatted(str), ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    void shouldThrowExceptionWhenTrySetBlankRulesFile(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRulesFile(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_RULES_FILE_MSG, ex.getMessage());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    void shouldThrowExceptionWhenTrySetBlankRuleSetName(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addRuleSetName(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_RULE_SET_NAME_MSG, ex.getMessage());
+        var refEx = assertThrows(IncorrectConfigurationException.class, () -> subject.addRuleSetRef(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_RULE_SET_NAME_MSG, refEx.getMessage());
+    }
+
+    @Test
+    void shouldNotStartWhenReferencingRuleSetAndDeclaringRules() {
+        //given:
+        subject.addRuleSetRef("shared");
+        subject.addFieldName("email");
+        //when:
+        subject.start();
+        //then:
+        Assertions.assertFalse(subject.isStarted());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    void shouldThrowExceptionWhenTrySetBlankPrecompiledRuleSet(String str) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> subject.addPrecompiledRuleSet(str));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_PRECOMPILED_RULE_SET_MSG, ex.getMessage());
+    }
+
     static class TestImplementationSensitiveDataTextDecoratorTest extends AbstractSensitiveDataDecorator {
         @Override
         protected String maskLogMessage(final String str) {
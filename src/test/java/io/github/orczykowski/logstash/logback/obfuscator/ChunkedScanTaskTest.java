@@ -0,0 +1,78 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChunkedScanTaskTest {
+
+    @Test
+    void shouldEndChunksAfterNearestWhitespaceOrComma() {
+        //given:
+        var input = "abcdefgh,ijklmnop qrs";
+
+        //when:
+        var boundaries = ChunkedScanTask.boundaries(input, 6);
+
+        //then:
+        assertArrayEquals(new int[]{0, 9, 18, 21}, boundaries);
+    }
+
+    @Test
+    void shouldEndChunksAtNominalLengthWithoutWhitespaceNearby() {
+        //given:
+        var input = "a".repeat(1000);
+
+        //when:
+        var boundaries = ChunkedScanTask.boundaries(input, 400);
+
+        //then:
+        assertArrayEquals(new int[]{0, 400, 800, 1000}, boundaries);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SensitiveDataPatternFactory.MatchingEngine.class)
+    void shouldFindTheSameValuesAsSequentialScan(final SensitiveDataPatternFactory.MatchingEngine engine) {
+        //given:
+        var ruleSet = CompiledRuleSet.compile(List.of("name", "email", "id"),
+                Arrays.stream(SensitiveDataPatternFactory.SensitiveValuePatterns.values())
+                        .map(SensitiveDataPatternFactory.SensitiveValuePatterns::getPatternTemplate).toList(),
+                SensitiveDataPatternFactory.CompileMode.PER_FIELD_NAME, engine,
+                RegexLimits.of(TimeoutRegexCharSequence.NO_TIMEOUT), null);
+        var input = randomInput(new Random(3), 20_000);
+        var sequential = new SensitiveValueSpans();
+        ruleSet.findSensitiveValues(input, sequential);
+
+        //when:
+        var parallel = ChunkedScanTask.scan(ruleSet, input, 97);
+
+        //then:
+        sequential.resolveOverlaps();
+        parallel.resolveOverlaps();
+        assertEquals(toString(sequential), toString(parallel));
+    }
+
+    private static String randomInput(final Random random, final int tokens) {
+        var alphabet = new String[]{"name", "email", "id", "=", "[", "]", "(", ")", "\"", ":", "x", "yz", " ", ","};
+        var input = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            input.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return input.toString();
+    }
+
+    private static String toString(final SensitiveValueSpans spans) {
+        var result = new StringBuilder();
+        for (int i = 0; i < spans.size(); i++) {
+            result.append(spans.start(i)).append('-').append(spans.end(i)).append(' ');
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CleanValueCacheTest {
+
+    @ParameterizedTest
+    @CsvSource({"1,2", "4,4", "5,8", "1000,1024"})
+    void shouldRoundCapacityUpToPowerOfTwo(final int size, final int expectedCapacity) {
+        assertEquals(expectedCapacity, new CleanValueCache(size).capacity());
+    }
+
+    @Test
+    void shouldContainEqualValueAfterAdding() {
+        //given:
+        var subject = new CleanValueCache(64);
+
+        //when:
+        subject.add("com.example.OrderService");
+
+        //then:
+        assertTrue(subject.contains(new String("com.example.OrderService")));
+        assertFalse(subject.contains("com.example.PaymentService"));
+    }
+
+    @Test
+    void shouldNotTakeCollidingValueForCleanOne() {
+        //given: "Aa" and "BB" have the same hash code
+        var subject = new CleanValueCache(64);
+
+        //when:
+        subject.add("Aa");
+
+        //then:
+        assertTrue(subject.contains("Aa"));
+        assertFalse(subject.contains("BB"));
+    }
+
+    @Test
+    void shouldReplaceValueInTheSameSlot() {
+        //given:
+        var subject = new CleanValueCache(64);
+        subject.add("Aa");
+
+        //when:
+        subject.add("BB");
+
+        //then:
+        assertFalse(subject.contains("Aa"));
+        assertTrue(subject.contains("BB"));
+    }
+
+    @Test
+    void shouldNotAddTooLongValue() {
+        //given:
+        var subject = new CleanValueCache(64);
+        var value = "x".repeat(CleanValueCache.MAX_VALUE_LENGTH + 1);
+
+        //when:
+        subject.add(value);
+
+        //then:
+        assertFalse(subject.contains(value));
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldNameAutomatonTest {
+
+    private static final FieldNameAutomaton subject = FieldNameAutomaton.of(List.of("firstName", "email", "name", "mail", "ssn"));
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "firstName=[Gustaw]",
+            "{\"email\":\"test@github.io\"}",
+            "user ssn",
+            "nickname=(x)",
+            "e-mail",
+            "firstNam and emai and mail"})
+    void shouldFindFieldNameInInput(final String input) {
+        assertTrue(subject.containsAnyFieldName(input));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "Something happened", "firstNam=[x] emai=(y) ss", "NAME", "nam"})
+    void shouldNotFindFieldNameWhenNoneIsPresent(final String input) {
+        assertFalse(subject.containsAnyFieldName(input));
+    }
+
+    @Test
+    void shouldFindFieldNameAfterPartialMatchOfLongerFieldName() {
+        var prefilter = FieldNameAutomaton.of(List.of("abcd", "bce"));
+
+        assertTrue(prefilter.containsAnyFieldName("xabce"));
+        assertFalse(prefilter.containsAnyFieldName("xabcx"));
+    }
+
+    @Test
+    void shouldReportLengthsOfAllFieldNamesEndingAtPosition() {
+        var input = "my email";
+        var state = FieldNameAutomaton.INITIAL_STATE;
+        for (int i = 0; i < input.length(); i++) {
+            state = subject.nextState(state, input.charAt(i));
+        }
+
+        assertArrayEquals(new int[]{5, 4}, subject.fieldNameLengths(state));
+    }
+
+    @Test
+    void shouldReportIdsOfAllFieldNamesEndingAtPositionInOrderOfLengths() {
+        var automaton = FieldNameAutomaton.of(List.of("mail", "email", "mail"));
+        var input = "my email";
+        var state = FieldNameAutomaton.INITIAL_STATE;
+        for (int i = 0; i < input.length(); i++) {
+            state = automaton.nextState(state, input.charAt(i));
+        }
+
+        assertArrayEquals(new int[]{5, 4}, automaton.fieldNameLengths(state));
+        assertArrayEquals(new int[]{1, 0}, automaton.fieldNameIds(state));
+        assertEquals(2, automaton.fieldNameCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"first.*", "name|email", "(email)", "a+", "pass\\w"})
+    void shouldTreatFieldNameWithRegexMetaCharacterAsNotLiteral(final String fieldName) {
+        assertFalse(FieldNameAutomaton.isLiteral(fieldName));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"firstName", "first_name", "first-name", "@timestamp"})
+    void shouldTreatPlainFieldNameAsLiteral(final String fieldName) {
+        assertTrue(FieldNameAutomaton.isLiteral(fieldName));
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldNameSetTest {
+
+    private static final FieldNameSet subject = FieldNameSet.of(List.of("firstName", "name", "id"));
+
+    @Test
+    void shouldFindFieldNameEndingAtPosition() {
+        assertTrue(subject.containsEndingAt("firstName=", 9, false));
+        assertTrue(subject.containsEndingAt("nickname=", 8, false));
+        assertTrue(subject.containsEndingAt("id", 2, false));
+    }
+
+    @Test
+    void shouldNotFindFieldNameWhenNoneEndsAtPosition() {
+        assertFalse(subject.containsEndingAt("firstName=", 8, false));
+        assertFalse(subject.containsEndingAt("names", 5, false));
+        assertFalse(subject.containsEndingAt("", 0, false));
+    }
+
+    @Test
+    void shouldRequireQuoteBeforeFieldNameWhenQuoted() {
+        assertTrue(subject.containsEndingAt("{\"firstName\"", 11, true));
+        assertTrue(subject.containsEndingAt("\"name\"", 5, true));
+        assertFalse(subject.containsEndingAt("{\"nickname\"", 10, true));
+        assertFalse(subject.containsEndingAt("name\"", 4, true));
+    }
+
+    @Test
+    void shouldFindEveryFieldNameEndingAtPositionFromShortest() {
+        //given:
+        var set = FieldNameSet.of(List.of("email", "mail", "id"));
+
+        //when:
+        var shortest = set.fieldNameEndingAt("my email=", 8, false, 1);
+        var next = set.fieldNameEndingAt("my email=", 8, false, set.length(shortest) + 1);
+
+        //then:
+        assertEquals(4, set.length(shortest));
+        assertEquals(5, set.length(next));
+        assertNotEquals(shortest, next);
+        assertTrue(next < set.capacity());
+        assertEquals(FieldNameSet.NOT_FOUND, set.fieldNameEndingAt("my email=", 8, false, 6));
+    }
+
+    @Test
+    void shouldFindEveryFieldNameOfLargeSet() {
+        var fieldNames = IntStream.range(0, 500).mapToObj(i -> "field" + i).toList();
+        var set = FieldNameSet.of(fieldNames);
+
+        fieldNames.forEach(fieldName -> assertTrue(set.containsEndingAt("x" + fieldName, fieldName.length() + 1, false)));
+        assertFalse(set.containsEndingAt("field500", 8, false));
+    }
+
+    @Test
+    void shouldFindFieldNameEndingAtByteOffsetOfUtf8Input() {
+        //given:
+        var set = FieldNameSet.ofUtf8(List.of("imię", "ę", "😀"));
+        var input = "{\"imię\":\"x\"} 😀=[y] ximię=".getBytes(StandardCharsets.UTF_8);
+
+        //when:
+        var fieldName = set.fieldNameEndingAt(input, 7, true, 1);
+
+        //then:
+        assertEquals(5, set.length(fieldName));
+        assertTrue(set.containsEndingAt(input, 7, false));
+        assertTrue(set.containsEndingAt(input, 18, false));
+        assertFalse(set.containsEndingAt(input, 6, false));
+        assertFalse(set.containsEndingAt(input, 29, true));
+        assertTrue(set.containsEndingAt(input, 29, false));
+    }
+}
@@ -0,0 +1,327 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogFileObfuscatorTest {
+
+    private static final String CONFIG = """
+            <configuration>
+                <appender name="mask" class="ch.qos.logback.core.ConsoleAppender">
+                    <encoder class="net.logstash.logback.encoder.LogstashEncoder">
+                        <decorator class="net.logstash.logback.mask.MaskingJsonGeneratorDecorator">
+                            <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                                <mask>***</mask>
+                                <regexTimeoutMillis>1000</regexTimeoutMillis>
+                                <patternName>JSON</patternName>
+                                <fieldName>email</fieldName>
+                                <pathRule>
+                                    <path>mdc.*</path>
+                                </pathRule>
+                            </valueMasker>
+                        </decorator>
+                    </encoder>
+                </appender>
+            </configuration>
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldMaskEveryLineAndKeepTheirOrder() throws IOException {
+        //given:
+        var valueMasker = LogFileObfuscator.loadValueMasker(write("logback.xml", CONFIG), new LoggerContext());
+        var subject = new LogFileObfuscator(valueMasker, 4, 100);
+        var input = write("input.log", IntStream.range(0, 500)
+                .mapToObj(i -> "{\"n\":" + i + ",\"email\":\"user" + i + "@github.io\",\"msg\":\"" + "x".repeat(i % 150) + "\"}")
+                .collect(Collectors.joining("\n", "", "\n")));
+        var output = directory.resolve("output.log");
+
+        //when:
+        var bytes = subject.obfuscate(input, output);
+
+        //then:
+        assertEquals(Files.size(input), bytes);
+        var expected = IntStream.range(0, 500)
+                .mapToObj(i -> "{\"n\":" + i + ",\"email\":\"***\",\"msg\":\"" + "x".repeat(i % 150) + "\"}")
+                .collect(Collectors.joining("\n", "", "\n"));
+        assertEquals(expected, Files.readString(output));
+    }
+
+    @Test
+    void shouldMaskDecodedLinesWhenPatternsNeedRegex() throws IOException {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addCustomPattern("[PROPERTY_NAME]:(\\d+)");
+        valueMasker.addFieldName("pin");
+        var subject = new LogFileObfuscator(valueMasker, 2, 16);
+        var input = write("input.log", "pin:1234 żółw\nnothing\npin:5 and pin:6");
+
+        //when:
+        subject.obfuscate(input, directory.resolve("output.log"));
+
+        //then:
+        assertEquals("pin:******** żółw\nnothing\npin:******** and pin:********",
+                Files.readString(directory.resolve("output.log")));
+    }
+
+    @Test
+    void shouldFailWhenLineIsLongerThanMaximumChunkSize() throws IOException {
+        //given:
+        var subject = new LogFileObfuscator(new SensitiveDataAsMaskDecorator(), 1, 16, 64);
+        var input = write("input.log", "short line\n" + "x".repeat(100) + "\nshort line\n");
+
+        //expect:
+        var ex = assertThrows(IOException.class, () -> subject.obfuscate(input, directory.resolve("output.log")));
+        assertEquals(LogFileObfuscator.LINE_TOO_LONG_FMT.formatted(11, 64), ex.getMessage());
+    }
+
+    @Test
+    void shouldReportThroughputWhenRunFromCommandLine() throws IOException {
+        //given:
+        var config = write("logback.xml", CONFIG);
+        var input = write("input.log", "{\"email\":\"jan@github.io\"}\n");
+        var output = directory.resolve("output.log");
+        var out = new ByteArrayOutputStream();
+
+        //when:
+        var exitCode = LogFileObfuscator.run(new String[]{"--config", config.toString(), "--threads", "2",
+                input.toString(), output.toString()}, new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+        //then:
+        assertEquals(0, exitCode);
+        assertEquals("{\"email\":\"***\"}\n", Files.readString(output));
+        assertTrue(out.toString(StandardCharsets.UTF_8).matches("(?s)Masked .* MB in .* s \\(.* MB/s\\).*"));
+    }
+
+    @Test
+    void shouldMaskWithRulesFileAndStopItsWatcherWhenRunFromCommandLine() throws IOException, InterruptedException {
+        //given:
+        var rules = write("pii.rules", "patternName=JSON\nfieldName=email\n");
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <mask>***</mask>
+                        <rulesFile>%s</rulesFile>
+                    </valueMasker>
+                </configuration>
+                """.formatted(rules));
+        var input = write("input.log", "{\"email\":\"jan@github.io\",\"login\":\"jan\"}\n");
+        var output = directory.resolve("output.log");
+
+        //when:
+        var exitCode = LogFileObfuscator.run(new String[]{"--config", config.toString(), input.toString(), output.toString()},
+                new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+        //then:
+        assertEquals(0, exitCode);
+        assertEquals("{\"email\":\"***\",\"login\":\"jan\"}\n", Files.readString(output));
+        for (var thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("SensitiveDataRulesFileWatcher-pii.rules")) {
+                thread.join(1000);
+                assertFalse(thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    void shouldMaskWithReferencedRuleSet() throws IOException {
+        //given:
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <mask>***</mask>
+                        <ruleSetRef>cli-pii</ruleSetRef>
+                    </valueMasker>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <ruleSetName>cli-pii</ruleSetName>
+                        <patternName>JSON</patternName>
+                        <fieldName>email</fieldName>
+                    </valueMasker>
+                </configuration>
+                """);
+        var context = new LoggerContext();
+
+        //when:
+        var valueMasker = LogFileObfuscator.loadValueMasker(config, context);
+
+        //then:
+        try {
+            assertEquals("{\"email\":\"***\"}", valueMasker.mask(null, "{\"email\":\"jan@github.io\"}"));
+        } finally {
+            context.stop();
+        }
+    }
+
+    @Test
+    void shouldFailWhenRulesFileCannotBeRead() throws IOException {
+        //given:
+        var rules = directory.resolve("missing.rules");
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <rulesFile>%s</rulesFile>
+                    </valueMasker>
+                </configuration>
+                """.formatted(rules));
+        var err = new ByteArrayOutputStream();
+
+        //when:
+        var exitCode = LogFileObfuscator.run(new String[]{"--config", config.toString(), write("input.log", "").toString(),
+                directory.resolve("output.log").toString()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        //then:
+        assertEquals(1, exitCode);
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith(
+                LogFileObfuscator.VALUE_MASKER_NOT_STARTED_FMT.formatted(config, "")));
+    }
+
+    @Test
+    void shouldWarnAboutSkippedPathRulesWhenRunFromCommandLine() throws IOException {
+        //given:
+        var config = write("logback.xml", CONFIG);
+        var input = write("input.log", "{\"email\":\"jan@github.io\"}\n");
+        var err = new ByteArrayOutputStream();
+
+        //when:
+        var exitCode = LogFileObfuscator.run(new String[]{"--config", config.toString(), input.toString(),
+                directory.resolve("output.log").toString()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        //then:
+        assertEquals(0, exitCode);
+        assertEquals(LogFileObfuscator.PATH_RULES_SKIPPED_FMT.formatted(1, config), err.toString(StandardCharsets.UTF_8).trim());
+    }
+
+    @Test
+    void shouldSubstituteVariablesFromPropertiesAndSystemProperties() throws IOException {
+        //given:
+        var config = write("logback.xml", """
+                <configuration>
+                    <property name="MASK" value="#${MASK_SUFFIX:-#}" />
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <mask>${MASK}</mask>
+                        <patternName>JSON</patternName>
+                        <fieldName>${LOG_FILE_OBFUSCATOR_TEST_FIELD}</fieldName>
+                    </valueMasker>
+                </configuration>
+                """);
+        System.setProperty("LOG_FILE_OBFUSCATOR_TEST_FIELD", "email");
+        var context = new LoggerContext();
+
+        //when:
+        try {
+            var valueMasker = LogFileObfuscator.loadValueMasker(config, context);
+
+            //then:
+            assertEquals("{\"email\":\"##\"}", valueMasker.mask(null, "{\"email\":\"jan@github.io\"}"));
+        } finally {
+            System.clearProperty("LOG_FILE_OBFUSCATOR_TEST_FIELD");
+            context.stop();
+        }
+    }
+
+    @Test
+    void shouldFailWhenVariableIsUndefined() throws IOException {
+        //given:
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <patternName>JSON</patternName>
+                        <fieldName>${LOG_FILE_OBFUSCATOR_UNDEFINED_FIELD}</fieldName>
+                    </valueMasker>
+                </configuration>
+                """);
+        var err = new ByteArrayOutputStream();
+
+        //when:
+        var exitCode = LogFileObfuscator.run(new String[]{"--config", config.toString(), write("input.log", "").toString(),
+                directory.resolve("output.log").toString()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        //then:
+        assertEquals(1, exitCode);
+        assertEquals(LogFileObfuscator.UNRESOLVED_VARIABLE_FMT.formatted(config, "${LOG_FILE_OBFUSCATOR_UNDEFINED_FIELD}"),
+                err.toString(StandardCharsets.UTF_8).trim());
+    }
+
+    @Test
+    void shouldFailWhenValueMaskerHasNoRules() throws IOException {
+        //given:
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <mask>***</mask>
+                    </valueMasker>
+                </configuration>
+                """);
+
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> LogFileObfuscator.loadValueMasker(config, new LoggerContext()));
+        assertEquals(LogFileObfuscator.NO_RULES_FMT.formatted(config), ex.getMessage());
+    }
+
+    @Test
+    void shouldPrintUsageWhenArgumentsAreMissing() {
+        //given:
+        var err = new ByteArrayOutputStream();
+
+        //when:
+        var exitCode = LogFileObfuscator.run(new String[]{"input.log"}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        //then:
+        assertEquals(2, exitCode);
+        assertEquals(LogFileObfuscator.USAGE, err.toString(StandardCharsets.UTF_8).trim());
+    }
+
+    @Test
+    void shouldRejectUnsupportedValueMaskerElement() throws IOException {
+        //given:
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <colour>red</colour>
+                    </valueMasker>
+                </configuration>
+                """);
+
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> LogFileObfuscator.loadValueMasker(config, new LoggerContext()));
+        assertEquals(LogFileObfuscator.UNSUPPORTED_ELEMENT_FMT.formatted("colour"), ex.getMessage());
+    }
+
+    @Test
+    void shouldPropagateConfigurationErrorsOfValueMasker() throws IOException {
+        //given:
+        var config = write("logback.xml", """
+                <configuration>
+                    <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                        <patternName>UNKNOWN</patternName>
+                    </valueMasker>
+                </configuration>
+                """);
+
+        //expect:
+        assertInstanceOf(IncorrectConfigurationException.class,
+                assertThrows(RuntimeException.class, () -> LogFileObfuscator.loadValueMasker(config, new LoggerContext())));
+    }
+
+    private Path write(final String name, final String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MaskingResultCacheTest {
+    private final AtomicInteger maskings = new AtomicInteger();
+    private final UnaryOperator<String> masking = message -> {
+        maskings.incrementAndGet();
+        return message.startsWith("secret") ? "***" : message;
+    };
+
+    @Test
+    void shouldMaskRepeatedMessageOnlyOnce() {
+        //given:
+        var subject = new MaskingResultCache(100, 1 << 20);
+
+        //when:
+        var first = subject.get("secret=[1]", masking, () -> true);
+        var second = subject.get(new String("secret=[1]"), masking, () -> true);
+
+        //then:
+        assertEquals("***", first);
+        assertEquals("***", second);
+        assertEquals(1, maskings.get());
+        assertEquals(1, subject.hits());
+        assertEquals(1, subject.misses());
+    }
+
+    @Test
+    void shouldReturnGivenInstanceForCachedMessageWithoutSensitiveData() {
+        //given:
+        var subject = new MaskingResultCache(100, 1 << 20);
+        subject.get(new String("nothing to hide"), masking, () -> true);
+        var message = new String("nothing to hide");
+
+        //expect:
+        assertSame(message, subject.get(message, masking, () -> true));
+        assertEquals(1, maskings.get());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedMessageWhenStripeIsFull() {
+        //given: one entry per stripe
+        var subject = new MaskingResultCache(MaskingResultCache.STRIPES, 1 << 20);
+        var message = "secret";
+        var sameStripe = sameStripeAs(message, 0);
+        subject.get(message, masking, () -> true);
+
+        //when:
+        subject.get(sameStripe, masking, () -> true);
+        subject.get(message, masking, () -> true);
+
+        //then:
+        assertEquals(3, maskings.get());
+        assertEquals(0, subject.hits());
+    }
+
+    @Test
+    void shouldKeepMessageHitSinceLastEvictionWhenStripeIsFull() {
+        //given: two entries per stripe
+        var subject = new MaskingResultCache(2 * MaskingResultCache.STRIPES, 1 << 20);
+        var message = "secret";
+        var sameStripe = sameStripeAs(message, 0);
+        var otherSameStripe = sameStripeAs(message, 1);
+        subject.get(message, masking, () -> true);
+        subject.get(message, masking, () -> true);
+        subject.get(sameStripe, masking, () -> true);
+
+        //when:
+        subject.get(otherSameStripe, masking, () -> true);
+        subject.get(message, masking, () -> true);
+        subject.get(sameStripe, masking, () -> true);
+
+        //then:
+        assertEquals(4, maskings.get());
+        assertEquals(2, subject.hits());
+    }
+
+    @Test
+    void shouldHonourEntryLimitSmallerThanNumberOfStripes() {
+        //given:
+        var subject = new MaskingResultCache(1, 1 << 20);
+
+        //when:
+        subject.get("secret1", masking, () -> true);
+        subject.get("secret2", masking, () -> true);
+        subject.get("secret1", masking, () -> true);
+
+        //then:
+        assertEquals(3, maskings.get());
+        assertEquals(0, subject.hits());
+    }
+
+    @Test
+    void shouldNotCacheMessageExceedingByteLimit() {
+        //given:
+        var subject = new MaskingResultCache(100, MaskingResultCache.STRIPES * 100L);
+        var message = "secret".repeat(20);
+
+        //when:
+        subject.get(message, masking, () -> true);
+        subject.get(message, masking, () -> true);
+
+        //then:
+        assertEquals(2, maskings.get());
+        assertEquals(0, subject.hits());
+    }
+
+    @Test
+    void shouldNotCacheResultWhichIsNotCacheable() {
+        //given:
+        var subject = new MaskingResultCache(100, 1 << 20);
+
+        //when:
+        subject.get("secret", masking, () -> false);
+        subject.get("secret", masking, () -> false);
+
+        //then:
+        assertEquals(2, maskings.get());
+    }
+
+    private static String sameStripeAs(final String message, final int skipped) {
+        final var stripe = stripeOf(message);
+        var toSkip = skipped;
+        for (int i = 0; ; i++) {
+            final var candidate = "secret" + i;
+            if (stripeOf(candidate) == stripe && toSkip-- == 0) {
+                return candidate;
+            }
+        }
+    }
+
+    private static int stripeOf(final String message) {
+        final var hash = message.hashCode();
+        return (hash ^ (hash >>> 16)) & (MaskingResultCache.STRIPES - 1);
+    }
+}
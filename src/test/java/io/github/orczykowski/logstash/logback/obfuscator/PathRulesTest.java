@@ -0,0 +1,93 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PathRulesTest {
+    private static final TestTokenStreamContext ROOT = TestTokenStreamContext.root();
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {" ", ".", "mdc.", ".message", "mdc..email"})
+    void shouldThrowExceptionWhenPathIsIncorrect(final String path) {
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> PathRules.validatePath(path));
+        assertEquals(PathRules.INVALID_PATH_FMT.formatted(path), ex.getMessage());
+    }
+
+    @Test
+    void shouldResolveFirstMatchingBinding() {
+        //given:
+        var subject = new PathRules(List.of(
+                new PathRules.Binding("@timestamp", PathRules.Action.SKIP, null),
+                new PathRules.Binding("mdc.*", PathRules.Action.DELEGATE, null),
+                new PathRules.Binding("**.message", PathRules.Action.SCAN, null),
+                new PathRules.Binding("mdc.traceId", PathRules.Action.SCAN, null)));
+
+        //expect:
+        assertEquals(PathRules.Action.SKIP, subject.resolve(ROOT.field("@timestamp")).action());
+        assertEquals(PathRules.Action.DELEGATE, subject.resolve(ROOT.field("mdc").field("email")).action());
+        assertEquals(PathRules.Action.DELEGATE, subject.resolve(ROOT.field("mdc").field("traceId")).action());
+        assertEquals(PathRules.Action.SCAN, subject.resolve(ROOT.field("message")).action());
+        assertEquals(PathRules.Action.SCAN, subject.resolve(ROOT.field("a").field("b").array().field("message")).action());
+        assertEquals(PathRules.Action.SKIP, subject.resolve(ROOT.field("mdc").field("a").field("b")).action());
+        assertEquals(PathRules.Action.SKIP, subject.resolve(ROOT.field("logger_name")).action());
+    }
+
+    @Test
+    void shouldScanUnboundPathsWhenNoPathIsScannedExplicitly() {
+        //given:
+        var subject = new PathRules(List.of(new PathRules.Binding("@timestamp", PathRules.Action.SKIP, null)));
+
+        //expect:
+        assertEquals(PathRules.Action.SKIP, subject.resolve(ROOT.field("@timestamp")).action());
+        assertEquals(PathRules.Action.SCAN, subject.resolve(ROOT.field("message")).action());
+        assertEquals(PathRules.Action.SCAN, subject.resolve(ROOT).action());
+    }
+
+    @Test
+    void shouldTreatArrayElementsLikeTheFieldHoldingTheArray() {
+        //given:
+        var subject = new PathRules(List.of(new PathRules.Binding("tags", PathRules.Action.SKIP, null)));
+
+        //expect:
+        assertEquals(PathRules.Action.SKIP, subject.resolve(ROOT.field("tags").array()).action());
+    }
+
+    @Test
+    void shouldResolveTheSameBindingForRepeatedPaths() {
+        //given:
+        var binding = new PathRules.Binding("**.email", PathRules.Action.SKIP, null);
+        var subject = new PathRules(List.of(binding));
+
+        //expect:
+        for (int i = 0; i < 3; i++) {
+            assertSame(binding, subject.resolve(ROOT.field("user").field("email")));
+        }
+    }
+
+    @Test
+    void shouldResolveUnboundFieldNamesWithoutLimitOnTheirNumber() {
+        //given:
+        var email = new PathRules.Binding("**.email", PathRules.Action.SKIP, null);
+        var message = new PathRules.Binding("*.message", PathRules.Action.SCAN, null);
+        var subject = new PathRules(List.of(email, message));
+
+        //expect:
+        for (int i = 0; i < 5_000; i++) {
+            var parent = ROOT.field("field" + i);
+            assertEquals(PathRules.Action.SKIP, subject.resolve(parent).action());
+            assertSame(email, subject.resolve(parent.field("email")));
+            assertSame(message, subject.resolve(parent.field("message")));
+            assertEquals(PathRules.Action.SKIP, subject.resolve(parent.field("message").field("text")).action());
+        }
+    }
+}
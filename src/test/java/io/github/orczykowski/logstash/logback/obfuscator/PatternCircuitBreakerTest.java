@@ -0,0 +1,55 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatternCircuitBreakerTest {
+
+    @Test
+    void shouldOpenAfterThresholdOfTimeoutsInARow() {
+        //given:
+        var subject = new PatternCircuitBreaker(2, 60_000);
+
+        //when:
+        subject.recordTimeout();
+        var openAfterFirstTimeout = subject.isOpen();
+        subject.recordTimeout();
+
+        //then:
+        assertFalse(openAfterFirstTimeout);
+        assertTrue(subject.isOpen());
+    }
+
+    @Test
+    void shouldStartCountingAgainAfterSuccess() {
+        //given:
+        var subject = new PatternCircuitBreaker(2, 60_000);
+        subject.recordTimeout();
+
+        //when:
+        subject.recordSuccess();
+        subject.recordTimeout();
+
+        //then:
+        assertFalse(subject.isOpen());
+    }
+
+    @Test
+    void shouldCloseAfterCoolDownAndOpenAgainOnNextTimeout() throws InterruptedException {
+        //given:
+        var subject = new PatternCircuitBreaker(3, 1);
+        subject.recordTimeout();
+        subject.recordTimeout();
+        subject.recordTimeout();
+
+        //when:
+        Thread.sleep(5);
+
+        //then:
+        assertFalse(subject.isOpen());
+        subject.recordTimeout();
+        assertTrue(subject.isOpen());
+    }
+}
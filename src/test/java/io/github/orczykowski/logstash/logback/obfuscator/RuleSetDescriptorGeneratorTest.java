@@ -0,0 +1,113 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.status.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleSetDescriptorGeneratorTest {
+
+    private static final String CONFIG = """
+            <configuration>
+                <valueMasker class="io.github.orczykowski.logstash.logback.obfuscator.SensitiveDataAsMaskDecorator">
+                    <matchingEngine>REGEX</matchingEngine>
+                    <patternCompileMode>SINGLE</patternCompileMode>
+                    <patternName>JSON</patternName>
+                    <patternName>EQUAL_AND_SQUARE_BRACKETS</patternName>
+                    <fieldName>email</fieldName>
+                    <fieldName>phone</fieldName>
+                    <precompiledRuleSet>rules/pii.rules</precompiledRuleSet>
+                </valueMasker>
+            </configuration>
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldGenerateDescriptorLoadedByValueMasker() throws IOException {
+        //given:
+        var config = Files.writeString(directory.resolve("logback.xml"), CONFIG);
+        var output = directory.resolve("classes/rules/pii.rules");
+        var log = "{\"email\":\"jan@github.io\"} phone=[123456789] name=[Jan]";
+
+        //when:
+        var exitCode = RuleSetDescriptorGenerator.run(new String[]{"--config", config.toString(), output.toString()},
+                new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+        //then:
+        assertEquals(0, exitCode);
+        var compiled = LogFileObfuscator.createValueMasker(config);
+        compiled.addPrecompiledRuleSet("missing.rules");
+        var precompiled = startedWithClasspath(LogFileObfuscator.createValueMasker(config), directory.resolve("classes"));
+        assertEquals(List.of(), statusMessages(precompiled));
+        assertEquals(compiled.mask(null, log), precompiled.mask(null, log));
+        assertEquals("{\"email\":\"********\"} phone=[********] name=[Jan]", precompiled.mask(null, log));
+    }
+
+    @Test
+    void shouldCompileRulesWhenDescriptorWasGeneratedForOtherRules() throws IOException {
+        //given:
+        var config = Files.writeString(directory.resolve("logback.xml"), CONFIG);
+        var output = directory.resolve("classes/rules/pii.rules");
+        RuleSetDescriptorGenerator.run(new String[]{"--config", config.toString(), output.toString()},
+                new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+        var valueMasker = LogFileObfuscator.createValueMasker(config);
+        valueMasker.addFieldName("name");
+
+        //when:
+        var started = startedWithClasspath(valueMasker, directory.resolve("classes"));
+
+        //then:
+        assertEquals(List.of(AbstractSensitiveDataDecorator.PRECOMPILED_RULE_SET_OUTDATED_FMT.formatted("rules/pii.rules")),
+                statusMessages(started));
+        assertEquals("{\"email\":\"********\"} phone=[********] name=[********]",
+                started.mask(null, "{\"email\":\"jan@github.io\"} phone=[123456789] name=[Jan]"));
+    }
+
+    @Test
+    void shouldPrintUsageWhenArgumentsAreMissing() {
+        //given:
+        var err = new ByteArrayOutputStream();
+
+        //when:
+        var exitCode = RuleSetDescriptorGenerator.run(new String[]{"rules.bin"},
+                new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        //then:
+        assertEquals(2, exitCode);
+        assertEquals(RuleSetDescriptorGenerator.USAGE, err.toString(StandardCharsets.UTF_8).trim());
+    }
+
+    private static AbstractSensitiveDataDecorator startedWithClasspath(final AbstractSensitiveDataDecorator valueMasker,
+                                                                       final Path classes) throws IOException {
+        valueMasker.setContext(new ContextBase());
+        var thread = Thread.currentThread();
+        var previous = thread.getContextClassLoader();
+        try (var classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, previous)) {
+            thread.setContextClassLoader(classLoader);
+            valueMasker.start();
+            assertTrue(valueMasker.isStarted());
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        return valueMasker;
+    }
+
+    private static List<String> statusMessages(final AbstractSensitiveDataDecorator valueMasker) {
+        return valueMasker.getContext().getStatusManager().getCopyOfStatusList().stream().map(Status::getMessage).toList();
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RuleSetDescriptorTest {
+    private static final List<String> TEMPLATES = List.of(
+            SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.getPatternTemplate(),
+            SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.getPatternTemplate());
+
+    @Test
+    void shouldRestoreRegularExpressionsAndValueGroups() throws IOException {
+        //given:
+        var patterns = new SensitiveDataPatternFactory().createSingle(List.of("email", "phone"), TEMPLATES);
+        var output = new ByteArrayOutputStream();
+
+        //when:
+        RuleSetDescriptor.write("fingerprint", patterns, output);
+        var subject = RuleSetDescriptor.read(new ByteArrayInputStream(output.toByteArray()));
+
+        //then:
+        assertEquals("fingerprint", subject.fingerprint());
+        var restored = subject.compilePatterns();
+        assertEquals(patterns.size(), restored.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            assertEquals(patterns.get(i).pattern().pattern(), restored.get(i).pattern().pattern());
+            assertArrayEquals(patterns.get(i).valueGroups(), restored.get(i).valueGroups());
+        }
+    }
+
+    @Test
+    void shouldThrowExceptionWhenInputIsNotDescriptor() {
+        //expect:
+        var ex = assertThrows(IOException.class,
+                () -> RuleSetDescriptor.read(new ByteArrayInputStream("fieldName=email\n".getBytes())));
+        assertEquals(RuleSetDescriptor.INVALID_DESCRIPTOR_MSG, ex.getMessage());
+    }
+
+    @Test
+    void shouldChangeFingerprintWithOrderOfRules() {
+        //given:
+        var fingerprint = RuleSetDescriptor.fingerprint(List.of("email", "phone"), TEMPLATES,
+                SensitiveDataPatternFactory.CompileMode.SINGLE, SensitiveDataPatternFactory.MatchingEngine.REGEX);
+
+        //expect:
+        assertEquals(fingerprint, RuleSetDescriptor.fingerprint(List.of("email", "phone"), TEMPLATES,
+                SensitiveDataPatternFactory.CompileMode.SINGLE, SensitiveDataPatternFactory.MatchingEngine.REGEX));
+        assertNotEquals(fingerprint, RuleSetDescriptor.fingerprint(List.of("phone", "email"), TEMPLATES,
+                SensitiveDataPatternFactory.CompileMode.SINGLE, SensitiveDataPatternFactory.MatchingEngine.REGEX));
+        assertNotEquals(fingerprint, RuleSetDescriptor.fingerprint(List.of("email", "phone"), TEMPLATES,
+                SensitiveDataPatternFactory.CompileMode.PER_PATTERN, SensitiveDataPatternFactory.MatchingEngine.REGEX));
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RulesFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadRulesSkippingCommentsAndBlankLines() throws IOException {
+        //given:
+        var path = Files.writeString(directory.resolve("rules"), """
+                # rules of the payment service
+                patternName=JSON
+
+                fieldName = password
+                fieldName=card.*
+                customPattern=[PROPERTY_NAME]:(\\S+=\\S+)
+                """);
+
+        //when:
+        var rules = new RulesFile(path).read();
+
+        //then:
+        assertEquals(List.of("password", "card.*"), rules.fieldNames());
+        assertEquals(List.of("JSON"), rules.patternNames());
+        assertEquals(List.of("[PROPERTY_NAME]:(\\S+=\\S+)"), rules.customPatterns());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenLineIsNotRule() throws IOException {
+        //given:
+        var path = Files.writeString(directory.resolve("rules"), "fieldName=password\nmask=***\n");
+
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> new RulesFile(path).read());
+        assertEquals(RulesFile.INVALID_RULE_FMT.formatted(2, path, "mask=***"), ex.getMessage());
+    }
+
+    @Test
+    void shouldReadRulesAgainOnlyWhenFileWasModified() throws IOException {
+        //given:
+        var path = Files.writeString(directory.resolve("rules"), "fieldName=password\n");
+        var subject = new RulesFile(path);
+
+        //expect:
+        assertEquals(List.of("password"), subject.readIfModified().orElseThrow().fieldNames());
+        assertTrue(subject.readIfModified().isEmpty());
+
+        //when:
+        Files.writeString(path, "fieldName=email\n");
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().plusSeconds(10)));
+
+        //then:
+        assertEquals(List.of("email"), subject.readIfModified().orElseThrow().fieldNames());
+        assertTrue(subject.readIfModified().isEmpty());
+    }
+}
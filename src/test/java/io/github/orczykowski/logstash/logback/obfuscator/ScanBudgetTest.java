@@ -0,0 +1,86 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanBudgetTest {
+
+    private static final Pattern FIRST_PATTERN = Pattern.compile("first");
+    private static final Pattern SECOND_PATTERN = Pattern.compile("second");
+
+    @Test
+    void shouldReuseSameBudgetForAllPatternsOfThread() {
+        //given:
+        var budget = ScanBudget.start("hello", 5000, TimeoutRegexCharSequence.NO_TIMEOUT, false);
+
+        //when:
+        var first = budget.forPattern(FIRST_PATTERN);
+        var second = ScanBudget.start("world", 5000, TimeoutRegexCharSequence.NO_TIMEOUT, false).forPattern(SECOND_PATTERN);
+
+        //then:
+        assertSame(first, second);
+        assertEquals("world", second.toString());
+        assertEquals('w', second.charAt(0));
+        assertEquals(5, second.length());
+    }
+
+    @Test
+    void shouldShareDeadlineBetweenPatterns() throws InterruptedException {
+        //given:
+        var budget = ScanBudget.start("hello", 5, TimeoutRegexCharSequence.NO_TIMEOUT, false);
+        budget.forPattern(FIRST_PATTERN).charAt(0);
+
+        //when:
+        Thread.sleep(20);
+        budget.forPattern(SECOND_PATTERN);
+
+        //then:
+        var ex = assertThrows(RegexProcessingTimeoutException.class, () -> budget.charAt(0));
+        assertEquals(RegexProcessingTimeoutException.REGEX_TIMED_OUT_FMT.formatted(5, "second"), ex.getMessage());
+    }
+
+    @Test
+    void shouldLimitEachPatternWithRegexTimeoutWithinBudget() throws InterruptedException {
+        //given:
+        var budget = ScanBudget.start("hello", 5000, 1, false).forPattern(FIRST_PATTERN);
+
+        //when:
+        Thread.sleep(10);
+
+        //then:
+        var ex = assertThrows(RegexProcessingTimeoutException.class, () -> budget.charAt(0));
+        assertEquals(RegexProcessingTimeoutException.REGEX_TIMED_OUT_FMT.formatted(1, "first"), ex.getMessage());
+    }
+
+    @Test
+    void shouldThrowPreallocatedExceptionWhenRequested() throws InterruptedException {
+        //given:
+        var budget = ScanBudget.start("hello", 1, TimeoutRegexCharSequence.NO_TIMEOUT, true).forPattern(FIRST_PATTERN);
+
+        //when:
+        Thread.sleep(10);
+
+        //then:
+        assertSame(RegexProcessingTimeoutException.PREALLOCATED,
+                assertThrows(RegexProcessingTimeoutException.class, () -> budget.charAt(0)));
+    }
+
+    @Test
+    void shouldStopCatastrophicBacktrackingOfAllPatternsWithinBudget() {
+        //given:
+        var catastrophicPattern = Pattern.compile("(.*a){12}");
+        var budget = ScanBudget.start("a".repeat(28) + "!", 50, TimeoutRegexCharSequence.NO_TIMEOUT, true);
+        var start = System.nanoTime();
+
+        //when:
+        assertThrows(RegexProcessingTimeoutException.class, () -> catastrophicPattern.matcher(budget.forPattern(catastrophicPattern)).matches());
+        assertThrows(RegexProcessingTimeoutException.class, () -> catastrophicPattern.matcher(budget.forPattern(catastrophicPattern)).matches());
+
+        //then:
+        var elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis < 1000, "budget exceeded after %dms".formatted(elapsedMillis));
+    }
+}
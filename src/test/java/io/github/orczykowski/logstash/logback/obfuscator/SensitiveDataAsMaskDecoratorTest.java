@@ -1,15 +1,30 @@
 package io.github.orczykowski.logstash.logback.obfuscator;
 
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.status.Status;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class SensitiveDataAsMaskDecoratorTest {
     private static final Set<String> SENSITIVE_FIELDS = Set.of("firstName", "idCardNumber", "mobilePhone", "other");
@@ -305,6 +320,182 @@ class SensitiveDataAsMaskDecoratorTest {
         assertEquals(expected, computedMaskLog);
     }
 
+    @ParameterizedTest
+    @EnumSource
+    void shouldMaskSensitiveDataTheSameWayInEveryCompileMode(SensitiveDataPatternFactory.CompileMode compileMode) {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addMatchingEngine(SensitiveDataPatternFactory.MatchingEngine.REGEX.name());
+        subject.addPatternCompileMode(compileMode.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_BRACKETS.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_DOUBLE_QUOTES.name());
+        addSensitiveFields();
+
+        var log = """
+                payload={"firstName":"Gustaw","nonSensitive":"test","idCardNumber":"CC123456"}
+                mobilePhone=(+48123123123) firstName=[Gustaw]
+                description="something" other="sth"
+                firstName=[Ala] idCardNumber=(CC654321)
+                firstName=(x firstName=[yyy) zzz] idCardNumber=[a idCardNumber=(b] c)
+                other="a firstName=(b" c) {"firstName":"d firstName=[e"} f]""";
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, log);
+
+        // then:
+        var expectedLogWithMaskedSensitiveData = """
+                payload={"firstName":"********","nonSensitive":"test","idCardNumber":"********"}
+                mobilePhone=(********) firstName=[********]
+                description="something" other="********"
+                firstName=[********] idCardNumber=(********)
+                firstName=(********] idCardNumber=[********)
+                other="********) {"firstName":"********] """;
+        assertEquals(expectedLogWithMaskedSensitiveData, computedMaskLog);
+    }
+
+    @ParameterizedTest
+    @EnumSource
+    void shouldMaskSensitiveDataTheSameWayWithEveryMatchingEngine(SensitiveDataPatternFactory.MatchingEngine matchingEngine) {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addMatchingEngine(matchingEngine.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_BRACKETS.name());
+        subject.addCustomPattern("[PROPERTY_NAME]==>'([^']+)'");
+        addSensitiveFields();
+
+        var log = """
+                payload={"firstName":"Gustaw","nonSensitive":"test","idCardNumber":""}
+                mobilePhone=(+48123123123) firstName=[Gustaw] other=[a^b]
+                description="something" other==>'sth'""";
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, log);
+
+        // then:
+        var expectedLogWithMaskedSensitiveData = """
+                payload={"firstName":"********","nonSensitive":"test","idCardNumber":"********"}
+                mobilePhone=(********) firstName=[********] other=[a^b]
+                description="something" other==>'********'""";
+        assertEquals(expectedLogWithMaskedSensitiveData, computedMaskLog);
+    }
+
+    @ParameterizedTest
+    @EnumSource
+    void shouldMaskBothValuesWhenTheyPartlyOverlap(SensitiveDataPatternFactory.MatchingEngine matchingEngine) {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addMatchingEngine(matchingEngine.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_BRACKETS.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("password");
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, "password=(x password=[yyy) zzz]");
+
+        // then:
+        assertEquals("password=(********]", computedMaskLog);
+    }
+
+    @ParameterizedTest
+    @EnumSource
+    void shouldNotMaskValueOfFieldNameInsidePreviousMatchOfTheSameFieldName(SensitiveDataPatternFactory.MatchingEngine matchingEngine) {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addMatchingEngine(matchingEngine.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_DOUBLE_QUOTES.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_BRACKETS.name());
+        subject.addFieldName("password");
+
+        // expect:
+        assertEquals("password=\"********\"b password=(********)", subject.mask(null, "password=\"a password=\"b password=(c\" d)"));
+        assertEquals("password=\"********\"b\"", subject.mask(null, "password=\"a password=\"b\""));
+    }
+
+    @Test
+    void shouldMaskDataUsingCustomPatternWithBackReferenceInSingleCompileMode() {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternCompileMode(SensitiveDataPatternFactory.CompileMode.SINGLE.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addCustomPattern("[PROPERTY_NAME]:([^;]+);\\1");
+        addSensitiveFields();
+
+        var log = "firstName:Gustaw;firstName idCardNumber=[CC123456]";
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, log);
+
+        // then:
+        assertEquals("firstName:********;firstName idCardNumber=[********]", computedMaskLog);
+    }
+
+    @Test
+    void shouldReturnTheSameInstanceWhenLogContainsNoFieldName() {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        addSensitiveFields();
+        var log = new String("Nothing sensitive here: description=[something]");
+
+        // when:
+        var computedMaskLog = subject.mask(null, log);
+
+        // then:
+        Assertions.assertSame(log, computedMaskLog);
+    }
+
+    @Test
+    void shouldMaskSensitiveDataWhenFieldNameIsRegularExpression() {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("[a-z]+Name");
+
+        var log = "firstName=[Gustaw] lastName=[Nowak] id=[1]";
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, log);
+
+        // then:
+        assertEquals("firstName=[********] lastName=[********] id=[1]", computedMaskLog);
+    }
+
+    @Test
+    void shouldMaskOnlyValueWhenValueIsAlsoPartOfFieldName() {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addFieldName("other");
+
+        var log = "other=[the] {\"other\":\"o\"}";
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, log);
+
+        // then:
+        assertEquals("other=[********] {\"other\":\"********\"}", computedMaskLog);
+    }
+
+    @Test
+    void shouldUseMaskContainingReplacementCharactersAsIs() {
+        // given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addMask("$1\\");
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        addSensitiveFields();
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, "firstName=[Gustaw]");
+
+        // then:
+        assertEquals("firstName=[$1\\]", computedMaskLog);
+    }
+
     private void addSensitiveFields() {
         SENSITIVE_FIELDS.forEach(subject::addFieldName);
     }
@@ -312,4 +503,550 @@ class SensitiveDataAsMaskDecoratorTest {
     protected static String asJson(Map<String, Object> map) {
         return new JSONObject(map).toString();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldMaskWholeValueOfSensitiveStructuredFieldWithoutAnyPattern() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addFieldName("email");
+        subject.addFieldName("phone.*");
+        subject.addFieldNameMasking("true");
+        var root = TestTokenStreamContext.root();
+
+        //expect:
+        assertEquals("********", subject.mask(root.field("email"), "jan@github.io"));
+        assertEquals("********", subject.mask(root.field("mdc").field("phoneNumber"), "+48123123123"));
+        assertEquals("********", subject.mask(root.field("email").array(), "jan@github.io"));
+        assertEquals("not sensitive", subject.mask(root.field("description"), "not sensitive"));
+        assertEquals("{\"email\":\"********\"}", subject.mask(root.field("message"), "{\"email\":\"jan@github.io\"}"));
+        assertEquals(42, subject.mask(root.field("email"), 42));
+    }
+
+    @Test
+    void shouldSearchSensitiveStructuredFieldForPatternsWhenFieldNameMaskingIsDisabled() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addFieldName("email");
+
+        //expect:
+        assertEquals("jan@github.io", subject.mask(TestTokenStreamContext.root().field("email"), "jan@github.io"));
+    }
+
+    @Test
+    void shouldMaskValuesAccordingToTheirPath() {
+        //given:
+        var mdcMasker = new SensitiveDataAsMaskDecorator();
+        mdcMasker.addMask("#");
+        mdcMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        mdcMasker.addFieldName("email");
+        mdcMasker.addFieldNameMasking("true");
+        var mdcRule = new PathRule();
+        mdcRule.addPath("mdc.*");
+        mdcRule.setValueMasker(mdcMasker);
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addSkipPath("@timestamp");
+        subject.addPathRule(mdcRule);
+        subject.addScanPath("message");
+        var root = TestTokenStreamContext.root();
+
+        //expect:
+        assertEquals("email=[********]", subject.mask(root.field("message"), "email=[jan@github.io]"));
+        assertEquals("email=[jan@github.io]", subject.mask(root.field("logger_name"), "email=[jan@github.io]"));
+        assertEquals("email=[jan@github.io]", subject.mask(root.field("@timestamp"), "email=[jan@github.io]"));
+        assertEquals("#", subject.mask(root.field("mdc").field("email"), "jan@github.io"));
+        assertEquals("email=[********]", subject.mask(null, "email=[jan@github.io]"));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPathRuleIsIncomplete() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        var rule = new PathRule();
+        rule.addPath("mdc.*");
+
+        //expect:
+        var ex = Assertions.assertThrows(IncorrectConfigurationException.class, () -> subject.addPathRule(rule));
+        assertEquals(AbstractSensitiveDataDecorator.INVALID_PATH_RULE_MSG, ex.getMessage());
+    }
+
+    @Test
+    void shouldTakeRepeatedMessageFromResultCache() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addResultCacheSize("100");
+
+        //when:
+        var first = subject.mask(null, "email=[jan@github.io]");
+        var second = subject.mask(null, "email=[jan@github.io]");
+
+        //then:
+        assertEquals("email=[********]", first);
+        assertEquals("email=[********]", second);
+        assertEquals(1, subject.getResultCacheHits());
+        assertEquals(1, subject.getResultCacheMisses());
+    }
+
+    @Test
+    void shouldDropCachedResultsWhenMaskChanges() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addResultCacheSize("100");
+        subject.mask(null, "email=[jan@github.io]");
+
+        //when:
+        subject.addMask("#");
+
+        //then:
+        assertEquals("email=[#]", subject.mask(null, "email=[jan@github.io]"));
+    }
+
+    @Test
+    void shouldRememberOnlyValuesWithoutSensitiveData() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addFieldNameMasking("true");
+        subject.addCleanValueCacheSize("64");
+        var clean = "email is jan@github.io";
+        var sensitive = "email=[jan@github.io]";
+
+        //when:
+        subject.mask(null, clean);
+        subject.mask(null, sensitive);
+
+        //then:
+        assertTrue(subject.getCleanValueCache().contains(clean));
+        assertFalse(subject.getCleanValueCache().contains(sensitive));
+        assertEquals("email=[********]", subject.mask(null, sensitive));
+        assertEquals("********", subject.mask(TestTokenStreamContext.root().field("email"), clean));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SensitiveDataPatternFactory.MatchingEngine.class)
+    void shouldCountScannedAndMaskedMessagesAndHitsPerPattern(SensitiveDataPatternFactory.MatchingEngine matchingEngine) {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addMatchingEngine(matchingEngine.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addMetricsEnabled("true");
+
+        //when:
+        subject.mask(null, "email=[a@github.io] email=[b@github.io]");
+        subject.mask(null, "email: none");
+
+        //then:
+        var metrics = subject.getMetrics().orElseThrow();
+        assertEquals(2, metrics.getScannedMessages());
+        assertEquals(1, metrics.getMaskedMessages());
+        assertEquals(2L, metrics.getPatternHits().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void shouldCountRegexTimeoutsPerPattern() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addCustomPattern("[PROPERTY_NAME]=((?:.*a){12})b");
+        subject.addFieldName("x");
+        subject.addRegexTimeoutMillis(1);
+        subject.addMetricsEnabled("true");
+
+        //when:
+        Assertions.assertThrows(RegexProcessingTimeoutException.class, () -> subject.mask(null, "x=" + "a".repeat(28) + "!"));
+
+        //then:
+        var metrics = subject.getMetrics().orElseThrow();
+        assertEquals(Map.of("(x)=((?:.*a){12})b", 1L), metrics.getPatternTimeouts());
+        assertEquals(0, metrics.getScannedMessages());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "MASK_VALUE|********",
+            "DROP_VALUE|''",
+            "TRUNCATE_VALUE|user logged in ...[TRUNCATED: regex timeout]",
+            "SKIP_PATTERN|user logged in email=[********] x=aaaaaaaaaaaaaaaaaaaaaaaaaaaa!"})
+    void shouldApplyTimeoutPolicyInsteadOfThrowing(String timeoutPolicy, String expected) {
+        //given:
+        subject = timingOutDecorator();
+        subject.addRegexTimeoutPolicy(timeoutPolicy);
+
+        //when:
+        var masked = subject.mask(null, "user logged in email=[jan@github.io] x=" + "a".repeat(28) + "!");
+
+        //then:
+        assertEquals(expected, masked);
+    }
+
+    @Test
+    void shouldTruncateWholeValueWhenCustomPatternCapturesValueBeforeFieldName() {
+        //given:
+        subject = timingOutDecorator();
+        subject.addCustomPattern("(\\S+)@[PROPERTY_NAME]");
+        subject.addCustomPattern("(?<!#)[PROPERTY_NAME]#(\\S+)");
+        subject.addRegexTimeoutPolicy("TRUNCATE_VALUE");
+
+        //when:
+        var masked = subject.mask(null, "s3cr3t@email x=" + "a".repeat(28) + "!");
+
+        //then:
+        assertEquals("...[TRUNCATED: regex timeout]", masked);
+        assertFalse(SensitiveDataPatternFactory.capturesBeforePropertyName("(?<!#)[PROPERTY_NAME]#(\\S+)"));
+        assertFalse(SensitiveDataPatternFactory.capturesBeforePropertyName("\\([PROPERTY_NAME]=(\\S+)"));
+        assertTrue(SensitiveDataPatternFactory.capturesBeforePropertyName("(?<v>\\S+)@[PROPERTY_NAME]"));
+    }
+
+    @Test
+    void shouldNotRememberValueScannedWithTimeoutAsClean() {
+        //given:
+        subject = timingOutDecorator();
+        subject.addRegexTimeoutPolicy("SKIP_PATTERN");
+        subject.addCleanValueCacheSize("64");
+        subject.addResultCacheSize("64");
+        var value = "x=" + "a".repeat(28) + "!";
+
+        //when:
+        subject.mask(null, value);
+
+        //then:
+        assertFalse(subject.getCleanValueCache().contains(value));
+        subject.mask(null, value);
+        assertEquals(0, subject.getResultCacheHits());
+    }
+
+    @Test
+    void shouldNotRunPatternWhileCircuitBreakerIsOpen() {
+        //given:
+        subject = timingOutDecorator();
+        subject.addRegexTimeoutPolicy("MASK_VALUE");
+        subject.addRegexCircuitBreakerThreshold("1");
+        subject.addMetricsEnabled("true");
+        var value = "x=" + "a".repeat(28) + "!";
+
+        //when:
+        var first = subject.mask(null, value);
+        var second = subject.mask(null, value);
+
+        //then:
+        assertEquals("********", first);
+        assertEquals("********", second);
+        assertEquals(1, subject.getMetrics().orElseThrow().getTimeouts());
+    }
+
+    @Test
+    void shouldNotCreateExceptionWhileCircuitBreakerIsOpenAndPolicyIsNotThrow() {
+        //given:
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        subject = timingOutDecorator();
+        subject.addRegexTimeoutPolicy("SKIP_PATTERN");
+        subject.addRegexCircuitBreakerThreshold("1");
+        var value = "x=" + "a".repeat(28) + "!";
+        subject.mask(null, value);
+        for (int i = 0; i < 20_000; i++) {
+            subject.mask(null, value);
+        }
+
+        //when:
+        var allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000; i++) {
+            subject.mask(null, value);
+        }
+        var allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        //then: an exception with its stack trace takes kilobytes
+        assertTrue(allocated < 100_000, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void shouldThrowExceptionWhileCircuitBreakerIsOpenAndPolicyIsThrow() {
+        //given:
+        subject = timingOutDecorator();
+        subject.addRegexCircuitBreakerThreshold("1");
+        var value = "x=" + "a".repeat(28) + "!";
+        Assertions.assertThrows(RegexProcessingTimeoutException.class, () -> subject.mask(null, value));
+
+        //expect:
+        var ex = Assertions.assertThrows(RegexProcessingTimeoutException.class, () -> subject.mask(null, value));
+        assertTrue(ex.getMessage().contains("((?:.*a){12})b"), ex.getMessage());
+    }
+
+    @Test
+    void shouldApplyTimeoutPolicyWhenPatternsExceedScanBudget() {
+        //given:
+        subject = timingOutDecorator();
+        subject.addRegexTimeoutMillis(TimeoutRegexCharSequence.NO_TIMEOUT);
+        subject.addRegexScanBudgetMillis(20);
+        subject.addRegexTimeoutPolicy("MASK_VALUE");
+        var start = System.nanoTime();
+
+        //when:
+        var masked = subject.mask(null, "x=" + "a".repeat(28) + "!");
+
+        //then:
+        var elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals("********", masked);
+        assertTrue(elapsedMillis < 1000, "budget exceeded after %dms".formatted(elapsedMillis));
+    }
+
+    @Test
+    void shouldMaskValuesWithinScanBudget() {
+        //given:
+        subject = timingOutDecorator();
+        subject.addRegexScanBudgetMillis(5000);
+
+        //when:
+        var masked = subject.mask(null, "user logged in email=[jan@github.io]");
+
+        //then:
+        assertEquals("user logged in email=[********]", masked);
+    }
+
+    @Test
+    void shouldMaskLargeValueScannedInParallelChunks() {
+        //given:
+        var sequential = new SensitiveDataAsMaskDecorator();
+        sequential.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        sequential.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        sequential.addFieldName("email");
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addParallelScanThreshold("1000");
+        var value = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            value.append("{\"email\":\"user").append(i).append("@github.io\"} email=[").append(i).append("] ");
+        }
+
+        //when:
+        var masked = subject.mask(null, value.toString());
+
+        //then:
+        assertEquals(sequential.mask(null, value.toString()), masked);
+        assertFalse(masked.toString().contains("github.io"));
+    }
+
+    @Test
+    void shouldMaskLargeValueByStreaming() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addStreamingThreshold("10000");
+        subject.addStreamingMaxValueLength("100");
+        var value = "email=[jan@github.io] ".repeat(1000);
+
+        //when:
+        var masked = subject.mask(null, value);
+
+        //then:
+        assertEquals("email=[********] ".repeat(1000), masked);
+        assertEquals("email=[********]", subject.mask(null, "email=[jan@github.io]"));
+    }
+
+    @Test
+    void shouldMaskWithReloadedRules() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addResultCacheSize("10");
+        var log = "email=[jan@github.io] phone=[123456789]";
+        assertEquals("email=[********] phone=[123456789]", subject.mask(null, log));
+
+        //when:
+        subject.reloadRules(List.of("phone"), List.of(), List.of("[PROPERTY_NAME]=\\[(\\d+)]"));
+
+        //then:
+        assertEquals("email=[jan@github.io] phone=[********]", subject.mask(null, log));
+    }
+
+    @Test
+    void shouldKeepPreviousRulesWhenReloadedRulesAreInvalid() {
+        //given:
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+
+        //when:
+        Assertions.assertThrows(IncorrectConfigurationException.class,
+                () -> subject.reloadRules(List.of("phone"), List.of("UNKNOWN"), List.of()));
+        Assertions.assertThrows(IncorrectConfigurationException.class,
+                () -> subject.reloadRules(List.of(), List.of("JSON"), List.of()));
+
+        //then:
+        assertEquals("email=[********] phone=[123456789]", subject.mask(null, "email=[jan@github.io] phone=[123456789]"));
+    }
+
+    @Test
+    void shouldMaskWithRulesFromModifiedRulesFile(@TempDir final Path directory) throws IOException {
+        //given:
+        var rulesFile = Files.writeString(directory.resolve("rules"), "patternName=EQUAL_AND_SQUARE_BRACKETS\nfieldName=phone\n");
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addFieldName("email");
+        subject.addRulesFile(rulesFile.toString());
+        subject.start();
+        var log = "email=[jan@github.io] phone=[123456789]";
+        assertEquals("email=[jan@github.io] phone=[********]", subject.mask(null, log));
+
+        //when:
+        Files.writeString(rulesFile, "patternName=EQUAL_AND_SQUARE_BRACKETS\nfieldName=email\n");
+        Files.setLastModifiedTime(rulesFile, FileTime.from(Instant.now().plusSeconds(10)));
+        subject.reloadRulesFileIfModified();
+
+        //then:
+        assertEquals("email=[********] phone=[123456789]", subject.mask(null, log));
+
+        //when:
+        Files.writeString(rulesFile, "fieldName=phone\n");
+        Files.setLastModifiedTime(rulesFile, FileTime.from(Instant.now().plusSeconds(20)));
+        subject.reloadRulesFileIfModified();
+
+        //then:
+        assertEquals("email=[********] phone=[123456789]", subject.mask(null, log));
+        subject.stop();
+    }
+
+    @Test
+    void shouldShareRuleSetBetweenDecorators() {
+        //given:
+        var owner = new SensitiveDataAsMaskDecorator();
+        owner.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        owner.addFieldName("email");
+        owner.addRuleSetName("shared-pii");
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.addRuleSetRef("shared-pii");
+        subject.addMask("###");
+        subject.addResultCacheSize("10");
+        subject.start();
+        owner.start();
+        var log = "email=[jan@github.io] phone=[123456789]";
+
+        //expect:
+        assertEquals("email=[********] phone=[123456789]", owner.mask(null, log));
+        assertEquals("email=[###] phone=[123456789]", subject.mask(null, log));
+        Assertions.assertSame(owner.getCompiledRuleSet(), subject.getCompiledRuleSet());
+
+        //when:
+        subject.reloadRules(List.of("phone"), List.of(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name()), List.of());
+
+        //then:
+        assertEquals("email=[jan@github.io] phone=[********]", owner.mask(null, log));
+        assertEquals("email=[jan@github.io] phone=[###]", subject.mask(null, log));
+        owner.stop();
+    }
+
+    @Test
+    void shouldReportErrorAndMaskNothingWhenReferencedRuleSetIsNotDeclared() {
+        //given:
+        var context = new ContextBase();
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.setContext(context);
+        subject.addRuleSetRef("not-declared");
+        subject.start();
+
+        //when:
+        var first = subject.mask(null, "email=[jan@github.io]");
+        var second = subject.mask(null, "email=[ola@github.io]");
+
+        //then:
+        assertEquals("email=[jan@github.io]", first);
+        assertEquals("email=[ola@github.io]", second);
+        assertEquals(List.of(AbstractSensitiveDataDecorator.UNKNOWN_RULE_SET_FMT.formatted("not-declared")),
+                context.getStatusManager().getCopyOfStatusList().stream()
+                        .filter(status -> status.getLevel() == Status.ERROR)
+                        .map(Status::getMessage)
+                        .toList());
+    }
+
+    @Test
+    void shouldShareRuleSetOnlyWithinLogbackContext() {
+        //given:
+        var emails = sharedRuleSetOwner(new ContextBase(), "email");
+        var phones = sharedRuleSetOwner(new ContextBase(), "phone");
+        subject = new SensitiveDataAsMaskDecorator();
+        subject.setContext(emails.getContext());
+        subject.addRuleSetRef("context-pii");
+        subject.start();
+        var log = "email=[jan@github.io] phone=[123456789]";
+
+        //when:
+        var masked = subject.mask(null, log);
+        emails.stop();
+
+        //then:
+        assertEquals("email=[********] phone=[123456789]", masked);
+        assertEquals(masked, subject.mask(null, log));
+        assertEquals("email=[jan@github.io] phone=[********]", phones.mask(null, log));
+        phones.stop();
+    }
+
+    @ParameterizedTest
+    @EnumSource(SensitiveDataPatternFactory.MatchingEngine.class)
+    void shouldNotAllocateWhenMessageHasNoSensitiveData(final SensitiveDataPatternFactory.MatchingEngine engine) {
+        //given:
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        var log = "email changed, phone: none, {\"firstName\": null} from 10.0.0.1";
+        for (AbstractSensitiveDataDecorator decorator : List.of(new SensitiveDataAsMaskDecorator(), new SensitiveDataAsShortcutDecorator())) {
+            decorator.addMatchingEngine(engine.name());
+            decorator.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+            decorator.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+            decorator.addCustomPattern("[PROPERTY_NAME]:(\\d+)");
+            decorator.addFieldName("email");
+            decorator.addFieldName("phone");
+            decorator.addFieldName("firstName");
+            // long enough not to expire during a pause of the JVM, which would allocate the timeout exception
+            decorator.addRegexTimeoutMillis(30_000);
+            decorator.addRegexScanBudgetMillis(60_000);
+            decorator.start();
+            for (int i = 0; i < 20_000; i++) {
+                Assertions.assertSame(log, decorator.mask(null, log));
+            }
+
+            //when: the least of several rounds, as allocating on every call shows in each of them
+            var allocated = Long.MAX_VALUE;
+            for (int round = 0; round < 5; round++) {
+                var allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < 1_000; i++) {
+                    decorator.mask(null, log);
+                }
+                allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - allocatedBefore);
+            }
+
+            //then: far less than a byte per call, the JVM itself may allocate a few bytes on the thread meanwhile
+            assertTrue(allocated < 1_000, decorator.getClass().getSimpleName() + " allocated " + allocated + " bytes");
+        }
+    }
+
+    private static SensitiveDataAsMaskDecorator sharedRuleSetOwner(final ContextBase context, final String fieldName) {
+        var owner = new SensitiveDataAsMaskDecorator();
+        owner.setContext(context);
+        owner.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        owner.addFieldName(fieldName);
+        owner.addRuleSetName("context-pii");
+        owner.start();
+        return owner;
+    }
+
+    private static SensitiveDataAsMaskDecorator timingOutDecorator() {
+        var decorator = new SensitiveDataAsMaskDecorator();
+        decorator.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        decorator.addCustomPattern("[PROPERTY_NAME]=((?:.*a){12})b");
+        decorator.addFieldName("email");
+        decorator.addFieldName("x");
+        decorator.addRegexTimeoutMillis(1);
+        return decorator;
+    }
+}
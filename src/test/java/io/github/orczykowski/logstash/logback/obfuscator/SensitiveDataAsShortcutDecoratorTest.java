@@ -277,6 +277,43 @@ class SensitiveDataAsShortcutDecoratorTest {
         assertEquals(expected, computedMaskLog);
     }
 
+    @Test
+    void shouldMaskEverySensitiveValueWhenFieldOccursManyTimes() {
+        // given:
+        subject = new SensitiveDataAsShortcutDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        addSensitiveFields();
+
+        var log = """
+                firstName=[Gustaw] firstName=[Al] idCardNumber=[CC123456] firstName=[Bartholomew]
+                {"firstName":"Gustaw","mobilePhone":"+48123123123","firstName":"Jo","firstName":""}
+                firstName=[ ] other=[x]""";
+
+        // when:
+        var computedMaskLog = (String) subject.mask(null, log);
+
+        // then:
+        var expectedLogWithMaskedSensitiveData = """
+                firstName=[G-6-w] firstName=[A-2-l] idCardNumber=[C-8-6] firstName=[B-11-w]
+                {"firstName":"G-6-w","mobilePhone":"+-12-3","firstName":"J-2-o","firstName":""}
+                firstName=[ ] other=[x-1-x]""";
+        assertEquals(expectedLogWithMaskedSensitiveData, computedMaskLog);
+    }
+
+    @Test
+    void shouldShortenWholeValueOfSensitiveStructuredField() {
+        // given:
+        subject = new SensitiveDataAsShortcutDecorator();
+        subject.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        subject.addFieldName("email");
+        subject.addFieldNameMasking("true");
+
+        // expect:
+        assertEquals("j-13-o", subject.mask(TestTokenStreamContext.root().field("email"), "jan@github.io"));
+        assertEquals("  ", subject.mask(TestTokenStreamContext.root().field("email"), "  "));
+    }
+
     private void addSensitiveFields() {
         SENSITIVE_FIELDS.forEach(subject::addFieldName);
     }
@@ -284,4 +321,4 @@ class SensitiveDataAsShortcutDecoratorTest {
     protected static String asJson(Map<String, Object> map) {
         return new JSONObject(map).toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,248 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.Status;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitiveDataMaskingAppenderTest {
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    @Test
+    void shouldMaskMessagesAndArgumentsAndPassThemOnInOrder() {
+        //given:
+        var target = listAppender();
+        var subject = appender(valueMasker(), target);
+        subject.setWorkers(3);
+        subject.setBatchSize(8);
+        subject.start();
+
+        //when:
+        IntStream.range(0, 50).forEach(i -> subject.doAppend(event("login {} email=[jan@github.io]", "email=[" + i + "]")));
+        subject.stop();
+
+        //then:
+        assertEquals(50, target.list.size());
+        for (int i = 0; i < 50; i++) {
+            var event = target.list.get(i);
+            assertEquals("login email=[********] email=[********]", event.getFormattedMessage());
+            assertArrayEquals(new Object[]{"email=[********]"}, event.getArgumentArray());
+            assertEquals("login {} email=[jan@github.io]", event.getMessage());
+        }
+    }
+
+    @Test
+    void shouldPassOnEventWithoutSensitiveDataAsItIs() {
+        //given:
+        var target = listAppender();
+        var subject = appender(valueMasker(), target);
+        subject.start();
+        var event = event("nothing to hide {}", 42);
+
+        //when:
+        subject.doAppend(event);
+        subject.stop();
+
+        //then:
+        assertSame(event, target.list.get(0));
+    }
+
+    @Test
+    void shouldMaskArgumentsWhichAreNotStrings() {
+        //given:
+        var target = listAppender();
+        var subject = appender(valueMasker(), target);
+        subject.start();
+        var clean = new StringBuilder("nothing to hide");
+        var sensitive = new StringBuilder("email=[jan@github.io]");
+
+        //when:
+        subject.doAppend(event("{} {}", clean, sensitive));
+        subject.stop();
+
+        //then:
+        assertEquals(1, target.list.size());
+        assertEquals(0, subject.getDroppedEvents());
+        var event = target.list.get(0);
+        assertEquals("nothing to hide email=[********]", event.getFormattedMessage());
+        assertSame(clean, event.getArgumentArray()[0]);
+        assertEquals("email=[********]", event.getArgumentArray()[1]);
+    }
+
+    @Test
+    void shouldDropEventsWhenQueueIsFullAndNeverBlockIsSet() throws InterruptedException {
+        //given:
+        var target = new BlockingAppender();
+        target.setContext(context);
+        target.start();
+        var subject = appender(valueMasker(), target);
+        subject.setQueueSize(1);
+        subject.setNeverBlock(true);
+        subject.start();
+        subject.doAppend(event("first"));
+        assertTrue(target.entered.await(5, TimeUnit.SECONDS));
+
+        //when:
+        subject.doAppend(event("second"));
+        subject.doAppend(event("third"));
+        subject.doAppend(event("fourth"));
+
+        //then:
+        assertEquals(2, subject.getDroppedEvents());
+        target.released.countDown();
+        subject.stop();
+    }
+
+    @Test
+    void shouldDropEventWhichCannotBeMasked() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addCustomPattern("[PROPERTY_NAME]=((?:.*a){12})b");
+        valueMasker.addFieldName("x");
+        valueMasker.addRegexTimeoutMillis(1);
+        var target = listAppender();
+        var subject = appender(valueMasker, target);
+        subject.start();
+
+        //when:
+        subject.doAppend(event("x=" + "a".repeat(28) + "!"));
+        subject.doAppend(event("ok"));
+        subject.stop();
+
+        //then:
+        assertEquals(1, target.list.size());
+        assertEquals("ok", target.list.get(0).getFormattedMessage());
+        assertEquals(1, subject.getDroppedEvents());
+    }
+
+    @Test
+    void shouldStopWhileMaskingUnderLoad() throws InterruptedException {
+        //given:
+        var received = new ConcurrentLinkedQueue<ILoggingEvent>();
+        var receivedThousand = new CountDownLatch(1000);
+        var target = new AppenderBase<ILoggingEvent>() {
+            @Override
+            protected void append(final ILoggingEvent event) {
+                received.add(event);
+                receivedThousand.countDown();
+            }
+        };
+        target.setContext(context);
+        target.start();
+        var subject = appender(valueMasker(), target);
+        subject.setName("loaded");
+        subject.setWorkers(4);
+        subject.setBatchSize(16);
+        subject.setMaxFlushTimeMillis(1);
+        subject.start();
+        var dispatcher = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("SensitiveDataMaskingAppender-loaded-dispatcher"))
+                .findFirst().orElseThrow();
+        var uncaught = new ConcurrentLinkedQueue<Throwable>();
+        dispatcher.setUncaughtExceptionHandler((thread, ex) -> uncaught.add(ex));
+        var producer = new Thread(() -> {
+            while (subject.isStarted()) {
+                subject.doAppend(event("login {} email=[jan@github.io]", "email=[ola@github.io]"));
+            }
+        });
+        producer.start();
+        assertTrue(receivedThousand.await(10, TimeUnit.SECONDS));
+
+        //when:
+        subject.stop();
+
+        //then:
+        assertFalse(dispatcher.isAlive());
+        assertFalse(target.isStarted());
+        var receivedWhenStopped = received.size();
+        producer.join();
+        assertEquals(receivedWhenStopped, received.size());
+        assertTrue(uncaught.isEmpty(), () -> uncaught.peek().toString());
+        for (final ILoggingEvent event : received) {
+            assertEquals("login email=[********] email=[********]", event.getFormattedMessage());
+        }
+    }
+
+    @Test
+    void shouldNotStartWithoutValueMaskerAndAppenders() {
+        //given:
+        var subject = new SensitiveDataMaskingAppender();
+        subject.setContext(context);
+        subject.setName("incomplete");
+        var statusesBefore = context.getStatusManager().getCount();
+
+        //when:
+        subject.start();
+
+        //then:
+        assertFalse(subject.isStarted());
+        var messages = context.getStatusManager().getCopyOfStatusList().stream()
+                .skip(statusesBefore)
+                .map(Status::getMessage)
+                .toList();
+        assertTrue(messages.contains(SensitiveDataMaskingAppender.MISSING_VALUE_MASKER_MSG));
+        assertTrue(messages.contains(SensitiveDataMaskingAppender.MISSING_APPENDERS_MSG));
+    }
+
+    private SensitiveDataMaskingAppender appender(final AbstractSensitiveDataDecorator valueMasker,
+                                                  final AppenderBase<ILoggingEvent> target) {
+        var appender = new SensitiveDataMaskingAppender();
+        appender.setContext(context);
+        appender.setName("masking");
+        appender.setValueMasker(valueMasker);
+        appender.addAppender(target);
+        return appender;
+    }
+
+    private ListAppender<ILoggingEvent> listAppender() {
+        var appender = new ListAppender<ILoggingEvent>();
+        appender.setContext(context);
+        appender.start();
+        return appender;
+    }
+
+    private LoggingEvent event(final String message, final Object... arguments) {
+        return new LoggingEvent(SensitiveDataMaskingAppenderTest.class.getName(),
+                context.getLogger(SensitiveDataMaskingAppenderTest.class), Level.INFO, message, null, arguments);
+    }
+
+    private static SensitiveDataAsMaskDecorator valueMasker() {
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        valueMasker.addFieldName("email");
+        return valueMasker;
+    }
+
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        protected void append(final ILoggingEvent event) {
+            entered.countDown();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
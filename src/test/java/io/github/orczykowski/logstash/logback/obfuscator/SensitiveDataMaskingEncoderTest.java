@@ -0,0 +1,207 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitiveDataMaskingEncoderTest {
+
+    @Test
+    void shouldMaskEncodedEventWithoutDecodingIt() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        valueMasker.addFieldName("imię");
+        valueMasker.addFieldName("email");
+        var subject = startedEncoder(valueMasker);
+
+        //when:
+        var encoded = subject.encode("{\"msg\":\"imię=[Gżegżółka] ok\",\"email\":\"jan@github.io\"}");
+
+        //then:
+        assertTrue(subject.isMaskingUtf8Directly());
+        assertEquals("{\"msg\":\"imię=[********] ok\",\"email\":\"********\"}", new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldMaskBytesDirectlyTheWayDecodedOutputIsMasked() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_DOUBLE_QUOTES.name());
+        valueMasker.addFieldName("password");
+        valueMasker.addFieldName("imię");
+        var subject = startedEncoder(valueMasker);
+        var event = "{\"password\":\"se\\\"cret\",\"imię\":\"Żaneta\"} password=\"a\\\" b\"";
+
+        //when:
+        var encoded = subject.encode(event);
+
+        //then:
+        assertTrue(subject.isMaskingUtf8Directly());
+        assertEquals(valueMasker.mask(null, event), new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldReturnEncodedEventAsItIsWhenThereIsNothingToMask() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        valueMasker.addFieldName("email");
+        var inner = new TextEncoder();
+        var subject = startedEncoder(valueMasker, inner);
+
+        //when:
+        var encoded = subject.encode("{\"msg\":\"nothing to hide\"}");
+
+        //then:
+        assertSame(inner.lastEncoded, encoded);
+    }
+
+    @Test
+    void shouldShortenValuesTheSameWayAsTheTextVariant() {
+        //given:
+        var valueMasker = new SensitiveDataAsShortcutDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_DOUBLE_QUOTES.name());
+        valueMasker.addFieldName("name");
+        var subject = startedEncoder(valueMasker);
+        var event = "name=\"Żółć\" name=\"a😀b\" name=\" \"";
+
+        //when:
+        var encoded = subject.encode(event);
+
+        //then:
+        assertTrue(subject.isMaskingUtf8Directly());
+        assertEquals(valueMasker.maskLogMessage(event), new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldMaskWithRulesReloadedAfterStart() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        valueMasker.addFieldName("email");
+        var subject = startedEncoder(valueMasker);
+
+        //when:
+        valueMasker.reloadRules(List.of("pin"), List.of(), List.of("[PROPERTY_NAME]:(\\d+)"));
+        var encoded = subject.encode("{\"email\":\"jan@github.io\"} pin:1234");
+
+        //then:
+        assertFalse(subject.isMaskingUtf8Directly());
+        assertEquals("{\"email\":\"jan@github.io\"} pin:********", new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldMaskDecodedEventWhenPatternsNeedRegex() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addCustomPattern("[PROPERTY_NAME]:(\\d+)");
+        valueMasker.addFieldName("pin");
+        var subject = startedEncoder(valueMasker);
+
+        //when:
+        var encoded = subject.encode("pin:1234 żółw");
+
+        //then:
+        assertFalse(subject.isMaskingUtf8Directly());
+        assertEquals("pin:******** żółw", new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldCountEncodedEventsInMetricsWhenMaskingThemDirectly() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        valueMasker.addFieldName("email");
+        valueMasker.addMetricsEnabled("true");
+        var subject = startedEncoder(valueMasker);
+
+        //when:
+        subject.encode("{\"email\":\"jan@github.io\"}");
+        subject.encode("{\"msg\":\"ok\"}");
+
+        //then:
+        assertTrue(subject.isMaskingUtf8Directly());
+        var metrics = valueMasker.getMetrics().orElseThrow();
+        assertEquals(2, metrics.getScannedMessages());
+        assertEquals(1, metrics.getMaskedMessages());
+        assertEquals(1, metrics.getHitsOfPattern(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name()));
+    }
+
+    @Test
+    void shouldCountEncodedEventsInMetricsWhenMaskingThemDecoded() {
+        //given:
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addCustomPattern("[PROPERTY_NAME]:(\\d+)");
+        valueMasker.addFieldName("pin");
+        valueMasker.addMetricsEnabled("true");
+        var subject = startedEncoder(valueMasker);
+
+        //when:
+        subject.encode("pin:1234");
+        subject.encode("nothing to hide");
+
+        //then:
+        assertFalse(subject.isMaskingUtf8Directly());
+        var metrics = valueMasker.getMetrics().orElseThrow();
+        assertEquals(2, metrics.getScannedMessages());
+        assertEquals(1, metrics.getMaskedMessages());
+    }
+
+    @Test
+    void shouldNotStartWithoutEncoderOrValueMasker() {
+        //given:
+        var subject = new SensitiveDataMaskingEncoder<String>();
+        subject.setContext(new ContextBase());
+
+        //when:
+        subject.start();
+
+        //then:
+        assertFalse(subject.isStarted());
+    }
+
+    private static SensitiveDataMaskingEncoder<String> startedEncoder(final AbstractSensitiveDataDecorator valueMasker) {
+        return startedEncoder(valueMasker, new TextEncoder());
+    }
+
+    private static SensitiveDataMaskingEncoder<String> startedEncoder(final AbstractSensitiveDataDecorator valueMasker,
+                                                                      final TextEncoder inner) {
+        var encoder = new SensitiveDataMaskingEncoder<String>();
+        encoder.setContext(new ContextBase());
+        encoder.setEncoder(inner);
+        encoder.setValueMasker(valueMasker);
+        encoder.start();
+        return encoder;
+    }
+
+    private static final class TextEncoder extends EncoderBase<String> {
+        private byte[] lastEncoded;
+
+        @Override
+        public byte[] headerBytes() {
+            return null;
+        }
+
+        @Override
+        public byte[] encode(final String event) {
+            lastEncoded = event.getBytes(StandardCharsets.UTF_8);
+            return lastEncoded;
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return null;
+        }
+    }
+}
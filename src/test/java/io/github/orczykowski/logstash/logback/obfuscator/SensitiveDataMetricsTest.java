@@ -0,0 +1,104 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitiveDataMetricsTest {
+
+    @Test
+    void shouldSumRecordedScans() {
+        //given:
+        var subject = new SensitiveDataMetrics();
+
+        //when:
+        subject.recordScan(100, true);
+        subject.recordScan(50, false);
+
+        //then:
+        assertEquals(2, subject.getScannedMessages());
+        assertEquals(1, subject.getMaskedMessages());
+        assertEquals(150, subject.getScanTimeNanos());
+    }
+
+    @Test
+    void shouldCountHitsAndTimeoutsPerPattern() {
+        //given:
+        var subject = new SensitiveDataMetrics();
+
+        //when:
+        subject.patternHits("JSON").increment();
+        subject.patternHits("JSON").increment();
+        subject.patternTimeouts("(a)=(.*)").increment();
+
+        //then:
+        assertEquals(Map.of("JSON", 2L), subject.getPatternHits());
+        assertEquals(Map.of("(a)=(.*)", 1L), subject.getPatternTimeouts());
+        assertEquals(1, subject.getTimeouts());
+    }
+
+    @Test
+    void shouldExposeMetricsInJmxReplacingPreviouslyRegisteredOnes() throws Exception {
+        //given:
+        var previous = new SensitiveDataMetrics();
+        previous.registerInJmx("metrics-test");
+        var subject = new SensitiveDataMetrics();
+        subject.recordScan(10, true);
+
+        //when:
+        subject.registerInJmx("metrics-test");
+
+        //then:
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var objectName = new ObjectName("io.github.orczykowski.logstash.logback.obfuscator:type=SensitiveDataMetrics,name=\"metrics-test\"");
+        assertEquals(1L, server.getAttribute(objectName, "MaskedMessages"));
+        server.unregisterMBean(objectName);
+    }
+
+    @Test
+    void shouldExposeMetricsOfDecoratorInJmxUntilItIsStopped() throws Exception {
+        //given:
+        var decorator = new SensitiveDataAsMaskDecorator();
+        decorator.addFieldName("email");
+        decorator.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        decorator.addMetricsJmxName("decorator-metrics-test");
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var objectName = SensitiveDataMetrics.objectName("decorator-metrics-test");
+
+        //when:
+        decorator.start();
+
+        //then:
+        assertTrue(server.isRegistered(objectName));
+
+        //when:
+        decorator.stop();
+
+        //then:
+        assertFalse(server.isRegistered(objectName));
+    }
+
+    @Test
+    void shouldNotUnregisterMetricsWhichReplacedItsOwnInJmx() throws Exception {
+        //given:
+        var replaced = new SensitiveDataMetrics();
+        replaced.registerInJmx("replaced-metrics-test");
+        var subject = new SensitiveDataMetrics();
+        subject.registerInJmx("replaced-metrics-test");
+
+        //when:
+        replaced.unregisterFromJmx("replaced-metrics-test");
+
+        //then:
+        var objectName = SensitiveDataMetrics.objectName("replaced-metrics-test");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+        subject.unregisterFromJmx("replaced-metrics-test");
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitiveValueSpansTest {
+
+    private static final SensitiveValueSpans.Replacement STARS = (output, input, start, end) -> output.append("***");
+
+    SensitiveValueSpans subject;
+
+    @BeforeEach
+    void init() {
+        subject = new SensitiveValueSpans();
+    }
+
+    @Test
+    void shouldReturnTheSameInstanceWhenThereAreNoSpans() {
+        var input = "nothing to mask";
+
+        assertSame(input, subject.applyTo(input, STARS));
+    }
+
+    @Test
+    void shouldReplaceSpansInOrderOfPosition() {
+        subject.add(6, 9);
+        subject.add(0, 3);
+        subject.resolveOverlaps();
+
+        assertEquals("***def***", subject.applyTo("abcdefghi", STARS));
+    }
+
+    @Test
+    void shouldKeepEarlierAndLongerSpanWhenSpansOverlap() {
+        subject.add(2, 4);
+        subject.add(0, 3);
+        subject.add(0, 5);
+        subject.add(5, 7);
+        subject.resolveOverlaps();
+
+        assertEquals(2, subject.size());
+        assertEquals(0, subject.start(0));
+        assertEquals(5, subject.end(0));
+        assertEquals(5, subject.start(1));
+        assertEquals(7, subject.end(1));
+    }
+
+    @Test
+    void shouldMergePartlyOverlappingSpans() {
+        //given:
+        subject.add(3, 8);
+        subject.add(0, 5);
+        subject.add(10, 12);
+        subject.add(7, 9);
+
+        //when:
+        subject.resolveOverlaps();
+
+        //then:
+        assertEquals(2, subject.size());
+        assertEquals(0, subject.start(0));
+        assertEquals(9, subject.end(0));
+        assertEquals(10, subject.start(1));
+        assertEquals(12, subject.end(1));
+        assertEquals("***j***", subject.applyTo("abcdefghijkl", STARS));
+    }
+
+    @Test
+    void shouldReplaceEmptySpan() {
+        subject.add(1, 1);
+
+        assertEquals("a***b", subject.applyTo("ab", STARS));
+    }
+
+    @Test
+    void shouldBeReusableAfterClear() {
+        subject.add(0, 1);
+        subject.applyTo("ab", STARS);
+        subject.clear();
+        subject.add(1, 2);
+
+        assertEquals("a***", subject.applyTo("ab", STARS));
+    }
+
+    @Test
+    void shouldGrowWhenThereAreManySpans() {
+        var input = "x".repeat(100);
+        for (int i = 0; i < 100; i += 2) {
+            subject.add(i, i + 1);
+        }
+
+        assertEquals("*x".repeat(50), subject.applyTo(input, (output, in, start, end) -> output.append('*')));
+    }
+
+    @Test
+    void shouldTruncateBeforeSpanCrossingThePosition() {
+        //given:
+        subject.add(2, 4);
+        subject.add(6, 9);
+        subject.resolveOverlaps();
+
+        //when:
+        subject.truncate(7, "|");
+
+        //then:
+        assertEquals("ab***ef|", subject.applyTo("abcdefghij", STARS));
+    }
+
+    @Test
+    void shouldDropSpansOfTimedOutPattern() {
+        //given:
+        subject.add(0, 1);
+        var sizeBefore = subject.size();
+        subject.add(2, 3);
+
+        //when:
+        subject.removeFrom(sizeBefore);
+        subject.markTimedOut();
+
+        //then:
+        assertEquals("***bc", subject.applyTo("abc", STARS));
+        assertTrue(subject.isTimedOut());
+    }
+
+    @Test
+    void shouldAddAllSpansAndTimeoutMarkOfOtherInstance() {
+        //given:
+        var other = new SensitiveValueSpans();
+        for (int i = 0; i < 20; i++) {
+            other.add(2 * i + 1, 2 * i + 2);
+        }
+        other.markTimedOut();
+        subject.add(0, 1);
+
+        //when:
+        subject.addAll(other);
+
+        //then:
+        assertEquals(21, subject.size());
+        assertTrue(subject.isTimedOut());
+        subject.resolveOverlaps();
+        assertEquals("******" + "a***".repeat(19), subject.applyTo("ab".repeat(20), STARS));
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingMaskerTest {
+    // the custom pattern times out only on the value at the end, which is beyond the first window
+    private static final String TIMING_OUT_INPUT = "x=[secret] " + "some words ".repeat(1500) + "x=" + "a".repeat(28) + "!";
+
+    @ParameterizedTest
+    @EnumSource(SensitiveDataPatternFactory.MatchingEngine.class)
+    void shouldMaskTheSameWayAsDecoratorAcrossManyWindows(final SensitiveDataPatternFactory.MatchingEngine engine) throws IOException {
+        //given:
+        var valueMasker = valueMasker(new SensitiveDataAsMaskDecorator());
+        valueMasker.addMatchingEngine(engine.name());
+        var subject = new StreamingMasker(valueMasker, 64);
+        var input = randomInput(new Random(5), 50_000);
+        var output = new StringWriter();
+
+        //when:
+        subject.mask(new TrickleReader(input), output);
+
+        //then:
+        assertEquals(valueMasker.maskLogMessage(input), output.toString());
+    }
+
+    @Test
+    void shouldShortenValuesCrossingWindowEnd() throws IOException {
+        //given:
+        var valueMasker = valueMasker(new SensitiveDataAsShortcutDecorator());
+        var subject = new StreamingMasker(valueMasker, 100);
+        var input = "x".repeat(8180) + " email=[" + "v".repeat(90) + "] tail";
+        var output = new StringWriter();
+
+        //when:
+        subject.mask(input, output);
+
+        //then:
+        assertEquals(valueMasker.maskLogMessage(input), output.toString());
+    }
+
+    @Test
+    void shouldCountMaskedTextsInMetricsOfValueMasker() throws IOException {
+        //given:
+        var valueMasker = valueMasker(new SensitiveDataAsMaskDecorator());
+        valueMasker.addMetricsEnabled("true");
+        var subject = new StreamingMasker(valueMasker);
+
+        //when:
+        subject.mask(new StringReader("email=[jan@github.io]"), new StringWriter());
+        subject.mask("nothing to hide", new StringWriter());
+
+        //then:
+        var metrics = valueMasker.getMetrics().orElseThrow();
+        assertEquals(2, metrics.getScannedMessages());
+        assertEquals(1, metrics.getMaskedMessages());
+    }
+
+    @Test
+    void shouldReturnInputItselfWhenThereIsNothingToMask() {
+        //given:
+        var subject = new StreamingMasker(valueMasker(new SensitiveDataAsMaskDecorator()));
+        var input = "nothing to hide ".repeat(2000);
+
+        //when:
+        var masked = subject.mask(input);
+
+        //then:
+        assertSame(input, masked);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SensitiveDataPatternFactory.TimeoutPolicy.class, names = "THROW", mode = EnumSource.Mode.EXCLUDE)
+    void shouldApplyTimeoutPolicyToWholeValueAsWhenMaskedAtOnce(final SensitiveDataPatternFactory.TimeoutPolicy policy) {
+        //given:
+        var valueMasker = timingOutValueMasker(policy);
+        var subject = new StreamingMasker(valueMasker, 64);
+
+        //when:
+        var masked = subject.mask(TIMING_OUT_INPUT);
+
+        //then:
+        assertEquals(valueMasker.maskLogMessage(TIMING_OUT_INPUT), masked.toString());
+    }
+
+    @Test
+    void shouldEndOutputBeforeWindowWhichTimedOutWhenValueIsDropped() throws IOException {
+        //given:
+        var subject = new StreamingMasker(timingOutValueMasker(SensitiveDataPatternFactory.TimeoutPolicy.DROP_VALUE), 64);
+        var output = new StringWriter();
+
+        //when:
+        subject.mask(new StringReader(TIMING_OUT_INPUT), output);
+
+        //then:
+        assertTrue(output.toString().startsWith("x=[********] some words"));
+        assertFalse(output.toString().contains("aaa"));
+    }
+
+    @Test
+    void shouldEndOutputWithTruncationMarkerWhenValueIsTruncated() throws IOException {
+        //given:
+        var subject = new StreamingMasker(timingOutValueMasker(SensitiveDataPatternFactory.TimeoutPolicy.TRUNCATE_VALUE), 64);
+        var output = new StringWriter();
+
+        //when:
+        subject.mask(new StringReader(TIMING_OUT_INPUT), output);
+
+        //then:
+        assertTrue(output.toString().startsWith("x=[********] some words"));
+        assertTrue(output.toString().endsWith(AbstractSensitiveDataDecorator.TRUNCATION_MARKER));
+        assertFalse(output.toString().contains("aaa"));
+    }
+
+    @Test
+    void shouldRejectNonPositiveMaxValueLength() {
+        //given:
+        var valueMasker = valueMasker(new SensitiveDataAsMaskDecorator());
+
+        //expect:
+        var ex = assertThrows(IncorrectConfigurationException.class, () -> new StreamingMasker(valueMasker, 0));
+        assertEquals(StreamingMasker.INVALID_MAX_VALUE_LENGTH_FMT.formatted(0), ex.getMessage());
+    }
+
+    private static <T extends AbstractSensitiveDataDecorator> T valueMasker(final T valueMasker) {
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON.name());
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        valueMasker.addFieldName("email");
+        valueMasker.addFieldName("id");
+        return valueMasker;
+    }
+
+    private static SensitiveDataAsMaskDecorator timingOutValueMasker(final SensitiveDataPatternFactory.TimeoutPolicy policy) {
+        var valueMasker = new SensitiveDataAsMaskDecorator();
+        valueMasker.addPatternName(SensitiveDataPatternFactory.SensitiveValuePatterns.EQUAL_AND_SQUARE_BRACKETS.name());
+        valueMasker.addCustomPattern("[PROPERTY_NAME]=((?:.*a){12})b");
+        valueMasker.addFieldName("x");
+        // long enough for the first window, the value at the end takes far longer
+        valueMasker.addRegexTimeoutMillis(100);
+        valueMasker.addRegexTimeoutPolicy(policy.name());
+        return valueMasker;
+    }
+
+    private static String randomInput(final Random random, final int tokens) {
+        var alphabet = new String[]{"email", "id", "=", "[", "]", "\"", ":", "x", "yz", " ", "\n"};
+        var input = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            input.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return input.toString();
+    }
+
+    /**
+     * Returns at most a few characters per read, as slow streams do.
+     */
+    private static class TrickleReader extends Reader {
+        private final StringReader reader;
+
+        TrickleReader(final String input) {
+            this.reader = new StringReader(input);
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            return reader.read(buffer, offset, Math.min(length, 7));
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}
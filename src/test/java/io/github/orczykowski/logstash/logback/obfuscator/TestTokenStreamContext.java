@@ -0,0 +1,39 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import tools.jackson.core.TokenStreamContext;
+
+/**
+ * Minimal context of a value written by a JSON generator, e.g. {@code root().field("mdc").field("email")}.
+ */
+final class TestTokenStreamContext extends TokenStreamContext {
+    private final TokenStreamContext parent;
+    private final String currentName;
+
+    private TestTokenStreamContext(final TokenStreamContext parent, final int type, final String currentName) {
+        super(type, 0);
+        this.parent = parent;
+        this.currentName = currentName;
+    }
+
+    static TestTokenStreamContext root() {
+        return new TestTokenStreamContext(null, TYPE_ROOT, null);
+    }
+
+    TestTokenStreamContext field(final String name) {
+        return new TestTokenStreamContext(this, TYPE_OBJECT, name);
+    }
+
+    TestTokenStreamContext array() {
+        return new TestTokenStreamContext(this, TYPE_ARRAY, null);
+    }
+
+    @Override
+    public TokenStreamContext getParent() {
+        return parent;
+    }
+
+    @Override
+    public String currentName() {
+        return currentName;
+    }
+}
@@ -110,4 +110,40 @@ class TimeoutRegexCharSequenceTest {
         assertTrue(matcher.find());
         assertEquals("world", matcher.group(1));
     }
+
+    @Test
+    void shouldThrowRegexProcessingTimeoutExceptionWhenBacktrackingExceedsTimeout() {
+        var catastrophicPattern = Pattern.compile("(.*a){12}");
+        var subject = new TimeoutRegexCharSequence("a".repeat(28) + "!", 50, catastrophicPattern);
+
+        var start = System.nanoTime();
+        assertThrows(RegexProcessingTimeoutException.class, () -> subject.matcher().matches());
+        var elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1000, "timeout detected after %dms".formatted(elapsedMillis));
+    }
+
+    @Test
+    void shouldCheckTimeoutOnlyOncePerClockCheckInterval() throws InterruptedException {
+        var subject = new TimeoutRegexCharSequence("hello", 1, SIMPLE_PATTERN);
+        subject.charAt(0);
+        Thread.sleep(10);
+
+        for (int i = 1; i < TimeoutRegexCharSequence.CLOCK_CHECK_INTERVAL; i++) {
+            subject.charAt(i % subject.length());
+        }
+
+        assertThrows(RegexProcessingTimeoutException.class, () -> subject.charAt(0));
+    }
+
+    @Test
+    void shouldThrowPreallocatedExceptionWithoutStackTraceWhenRequested() {
+        var catastrophicPattern = Pattern.compile("(.*a){12}");
+        var matcher = TimeoutRegexCharSequence.matcher(catastrophicPattern, "a".repeat(28) + "!", 1, true);
+
+        var ex = assertThrows(RegexProcessingTimeoutException.class, matcher::matches);
+
+        assertSame(RegexProcessingTimeoutException.PREALLOCATED, ex);
+        assertEquals(0, ex.getStackTrace().length);
+    }
 }
@@ -0,0 +1,108 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenizerSensitiveValueFinderTest {
+    private static final List<String> FIELD_NAMES = List.of("name", "firstName", "id", "e\"mail", "x=", "password");
+    private static final EnumSet<SensitiveDataPatternFactory.SensitiveValuePatterns> ALL_PATTERNS =
+            EnumSet.allOf(SensitiveDataPatternFactory.SensitiveValuePatterns.class);
+
+    private final TokenizerSensitiveValueFinder subject = new TokenizerSensitiveValueFinder(FieldNameSet.of(FIELD_NAMES), ALL_PATTERNS, null);
+    private final RegexSensitiveValueFinder regexFinder = new RegexSensitiveValueFinder(
+            new SensitiveDataPatternFactory().createPerFieldName(FIELD_NAMES,
+                    ALL_PATTERNS.stream().map(SensitiveDataPatternFactory.SensitiveValuePatterns::getPatternTemplate).toList()),
+            RegexLimits.of(TimeoutRegexCharSequence.NO_TIMEOUT), null);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"firstName\":\"Gustaw\",\"id\":\"\"}",
+            "firstName=[Gustaw] id=(1) name=\"x\"",
+            "xname=[a^b] name=[a[b] name=[] name=[ ]",
+            "name=(a)b) name=(a(b) name=\"\" name=\"a",
+            "\"name\":\"a\":\"b\":\"c\" \"firstName\":\"unclosed",
+            "name=[firstName=(x)] \"e\"mail\":\"y\" x==[z]",
+            "name=name=[x] name==[y] =[z] name=",
+            "password=\"a password=\"b password=(c\" d)",
+            "password=\"a password=\"b\"",
+            "\"name\":\"a\"name\":\"b\"",
+            "name=\"a firstName=\"b\" name=\"c name=\"d\"",
+            "\"id\"",
+            ""})
+    void shouldFindTheSameValuesAsRegexEngine(final String input) {
+        assertEquals(spansOf(regexFinder, input), spansOf(subject, input));
+    }
+
+    @Test
+    void shouldFindTheSameValuesAsRegexEngineForRandomInput() {
+        var random = new Random(11);
+        var alphabet = new String[]{"name", "firstName", "id", "first", "x", "=", "[", "]", "(", ")", "\"", ":", "^", " ", "\n",
+                "name=\"", "name=(", "name=[", "\"name\":\"", "firstName=\""};
+        for (int i = 0; i < 20_000; i++) {
+            var input = new StringBuilder();
+            var tokens = random.nextInt(30);
+            for (int j = 0; j < tokens; j++) {
+                input.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+
+            assertEquals(spansOf(regexFinder, input.toString()), spansOf(subject, input.toString()), input.toString());
+        }
+    }
+
+    @Test
+    void shouldFindValuesOnlyForConfiguredPatterns() {
+        var finder = new TokenizerSensitiveValueFinder(FieldNameSet.of(FIELD_NAMES),
+                EnumSet.of(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON), null);
+
+        assertEquals(List.of("[15, 16]"), spansOf(finder, "name=[a] \"id\":\"b\" id=(c)"));
+    }
+
+    @Test
+    void shouldFindTheSameValuesInConsecutiveRangesAsInWholeInput() {
+        var random = new Random(11);
+        var alphabet = new String[]{"name", "firstName", "id", "first", "=", "[", "]", "(", ")", "\"", ":", "^", "x", " "};
+        for (int i = 0; i < 5_000; i++) {
+            var input = new StringBuilder();
+            var tokens = random.nextInt(40);
+            for (int j = 0; j < tokens; j++) {
+                input.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            var spans = new SensitiveValueSpans();
+            var from = 0;
+            while (from < input.length()) {
+                var to = Math.min(input.length(), from + 1 + random.nextInt(8));
+                subject.find(input.toString(), from, to, spans);
+                from = to;
+            }
+
+            assertEquals(spansOf(subject, input.toString()), spansOf(spans), input.toString());
+        }
+    }
+
+    private static List<String> spansOf(final SensitiveValueFinder finder, final String input) {
+        var spans = new SensitiveValueSpans();
+        finder.find(input, spans);
+        return spansOf(spans);
+    }
+
+    /**
+     * Distinct spans in order, not merged, so an extra span overlapping another one is not hidden.
+     */
+    private static List<String> spansOf(final SensitiveValueSpans spans) {
+        var result = new TreeSet<List<Integer>>(Comparator.<List<Integer>, Integer>comparing(span -> span.get(0)).thenComparing(span -> span.get(1)));
+        for (int i = 0; i < spans.size(); i++) {
+            result.add(List.of(spans.start(i), spans.end(i)));
+        }
+        return result.stream().map(span -> Arrays.toString(new int[]{span.get(0), span.get(1)})).toList();
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.orczykowski.logstash.logback.obfuscator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Utf8SensitiveValueFinderTest {
+    private static final List<String> FIELD_NAMES = List.of("name", "firstName", "id", "e\"mail", "x=", "imię", "😀");
+    private static final EnumSet<SensitiveDataPatternFactory.SensitiveValuePatterns> ALL_PATTERNS =
+            EnumSet.allOf(SensitiveDataPatternFactory.SensitiveValuePatterns.class);
+
+    private final Utf8SensitiveValueFinder subject = new Utf8SensitiveValueFinder(FIELD_NAMES, ALL_PATTERNS, null);
+    private final RegexSensitiveValueFinder regexFinder = new RegexSensitiveValueFinder(
+            new SensitiveDataPatternFactory().createPerFieldName(FIELD_NAMES,
+                    ALL_PATTERNS.stream().map(SensitiveDataPatternFactory.SensitiveValuePatterns::getPatternTemplate).toList()),
+            RegexLimits.of(TimeoutRegexCharSequence.NO_TIMEOUT), null);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"firstName\":\"Gustaw\",\"id\":\"\"}",
+            "firstName=[Gżegżółka] id=(1€) name=\"x😀\"",
+            "imię=[Jan] \"imię\":\"Żaneta\" 😀=(smile) ximię=[y]",
+            "xname=[a^b] name=[a[b] name=[] name=[ ]",
+            "name=(a)b) name=(a(b) name=\"\" name=\"a",
+            "\"name\":\"a\":\"b\":\"c\" \"firstName\":\"unclosed",
+            "name=[firstName=(x)] \"e\"mail\":\"y\" x==[z]",
+            "name=name=[x] name==[y] =[z] name=",
+            "name=\"a name=\"b name=(c\" d)",
+            "\"name\":\"a\"name\":\"b\"",
+            "name=\"a firstName=\"b\" name=\"c name=\"d\"",
+            "\"id\"",
+            "{\"name\":\"se\\\"cret\",\"id\":\"a\\\\\"} name=\"x\\\" y\"",
+            ""})
+    void shouldFindTheSameValuesAsRegexEngine(final String input) {
+        assertEquals(valuesOf(regexFinder, input), valuesOf(subject, input));
+    }
+
+    @Test
+    void shouldFindTheSameValuesAsRegexEngineForRandomInput() {
+        var random = new Random(13);
+        var alphabet = new String[]{"name", "firstName", "id", "imię", "ę", "😀", "€", "x", "=", "[", "]", "(", ")", "\"", ":", "^", " ", "\\",
+                "name=\"", "imię=(", "\"name\":\""};
+        for (int i = 0; i < 20_000; i++) {
+            var input = new StringBuilder();
+            var tokens = random.nextInt(30);
+            for (int j = 0; j < tokens; j++) {
+                input.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+
+            assertEquals(valuesOf(regexFinder, input.toString()), valuesOf(subject, input.toString()), input.toString());
+        }
+    }
+
+    @Test
+    void shouldFindValuesOnlyForConfiguredPatterns() {
+        var finder = new Utf8SensitiveValueFinder(FIELD_NAMES, EnumSet.of(SensitiveDataPatternFactory.SensitiveValuePatterns.JSON), null);
+
+        assertEquals(List.of("b"), valuesOf(finder, "name=[a] \"id\":\"b\" id=(c)"));
+    }
+
+    private static List<String> valuesOf(final SensitiveValueFinder finder, final String input) {
+        var spans = new SensitiveValueSpans();
+        finder.find(input, spans);
+        return distinctSpans(spans).stream().map(span -> input.substring(span[0], span[1])).toList();
+    }
+
+    private static List<String> valuesOf(final Utf8SensitiveValueFinder finder, final String input) {
+        var bytes = input.getBytes(StandardCharsets.UTF_8);
+        var spans = new SensitiveValueSpans();
+        finder.find(bytes, spans);
+        return distinctSpans(spans).stream()
+                .map(span -> new String(bytes, span[0], span[1] - span[0], StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    /**
+     * Distinct spans in order, not merged, so an extra span overlapping another one is not hidden.
+     */
+    private static List<int[]> distinctSpans(final SensitiveValueSpans spans) {
+        var result = new TreeSet<int[]>(Comparator.<int[]>comparingInt(span -> span[0]).thenComparingInt(span -> span[1]));
+        for (int i = 0; i < spans.size(); i++) {
+            result.add(new int[]{spans.start(i), spans.end(i)});
+        }
+        return List.copyOf(result);
+    }
+}